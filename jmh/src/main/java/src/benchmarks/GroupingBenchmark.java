@@ -0,0 +1,42 @@
+package src.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import src.util.Grouping.Permutation;
+import static src.util.Grouping.D4;
+
+//composing every pair of D4 elements
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroupingBenchmark {
+    private Permutation[] elements;
+
+    @Setup
+    public void setup() {
+        elements = new Permutation[D4.getOrder()];
+        for (int i = 0; i < elements.length; i++) elements[i] = D4.get(i);
+    }
+
+    @Benchmark
+    public void apply(Blackhole blackhole) {
+        for (Permutation p1 : elements) {
+            for (Permutation p2 : elements) {
+                blackhole.consume(D4.apply(p1, p2));
+            }
+        }
+    }
+
+    @Benchmark
+    public int indexOf() {
+        int sum = 0;
+        for (Permutation p : elements) sum += D4.indexOf(p);
+        return sum;
+    }
+}
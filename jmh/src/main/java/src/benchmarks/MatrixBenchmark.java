@@ -0,0 +1,36 @@
+package src.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import src.datastructs.Matrix;
+import src.util.Grouping.Permutation;
+import static src.util.Grouping.D4;
+
+//transforming a shape's bitmap by every element of D4
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixBenchmark {
+    @Param({"SMALL_L_SHAPE", "BOWL"})
+    public String shape;
+    private Matrix<Boolean> bitmap;
+
+    @Setup
+    public void setup() {
+        bitmap = Shapes.byName(shape).getBitmap();
+    }
+
+    @Benchmark
+    public void transform(Blackhole blackhole) {
+        for (int i = 0; i < D4.getOrder(); i++) {
+            Permutation permutation = D4.get(i);
+            blackhole.consume(bitmap.transform(permutation));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package src.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import src.Shape;
+import src.util.GeometryUtil.Point;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShapeBenchmark {
+    @Param({"SMALL_L_SHAPE", "JAGGED", "BOWL"})
+    public String shape;
+    private Shape instance;
+
+    @Setup
+    public void setup() {
+        instance = Shapes.byName(shape);
+    }
+
+    @Benchmark
+    public boolean isConnected() {
+        return instance.isConnected();
+    }
+
+    @Benchmark
+    public List<Point> findBorderPoints() {
+        return instance.findBorderPoints();
+    }
+}
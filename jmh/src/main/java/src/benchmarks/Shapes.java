@@ -0,0 +1,18 @@
+package src.benchmarks;
+
+import src.Shape;
+
+//the shapes the benchmarks can be parameterised with
+class Shapes {
+    static Shape byName(String name) {
+        return switch(name) {
+            case "DOMINO" -> Shape.DOMINO;
+            case "SQUARE" -> Shape.SQUARE;
+            case "L_SHAPE" -> Shape.L_SHAPE;
+            case "SMALL_L_SHAPE" -> Shape.SMALL_L_SHAPE;
+            case "JAGGED" -> Shape.JAGGED;
+            case "BOWL" -> Shape.BOWL;
+            default -> throw new IllegalArgumentException("No shape named " + name);
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package src.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import src.Plane;
+import src.Tessellation;
+import src.TessellationCatalogue;
+import static src.util.Grouping.D4;
+
+//walking the default radius hash graph and drawing it
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TessellationBenchmark {
+    @Param({"SMALL_L_2", "BOWL_6"})
+    public String tessellation;
+    private Tessellation instance;
+    private Plane plane;
+
+    @Setup
+    public void setup() {
+        instance = TessellationCatalogue.BUILT_IN.create(tessellation);
+        instance.getColouring();
+        plane = new Plane(100, 100);
+    }
+
+    @Benchmark
+    public int traverse() {
+        return instance.getHashGraph().sizeFrom(instance.getHashGraph().find(0, 0, D4.indexOf(D4.ID)));
+    }
+
+    @Benchmark
+    public Plane drawToPlane() {
+        plane.clear();
+        instance.drawToPlane(plane);
+        return plane;
+    }
+}
@@ -0,0 +1,26 @@
+package src.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import src.Tessellation;
+import src.TessellationCatalogue;
+
+//building a built-in tessellation from scratch, the setup grid, rule propagation and the tessellation itself
+//DOMINO_5 and JAGGED_4 are left out as they dont give a tessellation
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TessellationSetupBenchmark {
+    @Param({"SMALL_L_2", "SQUARE_1", "BOWL_6", "DOMINO_4", "DOMINO_6_STRAIGHT", "DOMINO_6_ZIG_ZAG"})
+    public String tessellation;
+
+    @Benchmark
+    public Tessellation create() {
+        return TessellationCatalogue.BUILT_IN.create(tessellation);
+    }
+}
@@ -0,0 +1,93 @@
+package src;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import src.Tessellation.Orientation;
+import src.datastructs.*;
+import src.util.GeometryUtil.*;
+
+//draws a tessellation into a plane as horizontal bands that are rasterised independently
+//each band asks the lattice for the tiles crossing it and only writes its own rows,
+//tiles have to fit fully inside the plane like with placeBitmap, so the result matches drawTilesToPlane
+public class BandRenderer {
+    private Tessellation tessellation;
+    private TileColouring colouring;
+    private int bandHeight;
+
+    public BandRenderer(Tessellation tessellation, TileColouring colouring, int bandHeight) {
+        if(bandHeight <= 0) throw new IllegalArgumentException("Band height must be positive");
+        this.tessellation = tessellation;
+        this.colouring = colouring;
+        this.bandHeight = bandHeight;
+    }
+
+    public void render(Plane plane) {
+        render(plane, ForkJoinPool.commonPool());
+    }
+
+    public void render(Plane plane, ForkJoinPool pool) {
+        int bands = (plane.getHeight() + bandHeight - 1) / bandHeight;
+        pool.submit(() -> IntStream.range(0, bands).parallel().forEach(band -> {
+            int top = band * bandHeight;
+            renderBand(plane, top, Math.min(plane.getHeight(), top + bandHeight));
+        })).join();
+    }
+
+    //rasterises the rows [top, bottom) of the plane
+    public void renderBand(Plane plane, int top, int bottom) {
+        renderRows(plane.getWidth(), plane.getHeight(), top, bottom, plane::setPixel);
+    }
+
+    //rasterises the rows [top, bottom) of a width x height image whose center is the tessellation origin
+    //into pixels, which only holds those rows (row 0 of pixels is row top of the image)
+    public void renderRows(int[] pixels, int width, int height, int top, int bottom) {
+        if((long)(bottom - top) * width > pixels.length) throw new IllegalArgumentException("Rows " + top + " to " + bottom + " of width " + width + " dont fit in " + pixels.length + " pixels");
+        renderRows(width, height, top, bottom, (x, y, argb) -> pixels[(y - top) * width + x] = argb);
+    }
+
+    //draws every tile that overlaps the region (in tessellation coordinates) clipped to it, edge tiles included
+    //cell (region.x, region.y) goes to pixels[offset] and rows are stride apart
+    public void renderRegion(int[] pixels, int offset, int stride, Rect region) {
+        tessellation.forEachTileIn(region, (u, v, permutation, x, y) -> {
+            Orientation o = tessellation.getOrientation(permutation);
+            Matrix<Boolean> bitmap = o.bitmap();
+            int left = x - o.anchor().x(), top = y - o.anchor().y();
+            int argb = colouring.colourOf(u, v, permutation, x, y);
+            int firstRow = Math.max(0, region.y() - top);
+            int lastRow = Math.min(bitmap.getHeight(), region.y() + region.height() - top);
+            int firstColumn = Math.max(0, region.x() - left);
+            int lastColumn = Math.min(bitmap.getWidth(), region.x() + region.width() - left);
+            for (int i = firstRow; i < lastRow; i++) {
+                int rowStart = offset + (top + i - region.y()) * stride + left - region.x();
+                for (int j = firstColumn; j < lastColumn; j++) {
+                    if(bitmap.get(i, j)) pixels[rowStart + j] = argb;
+                }
+            }
+        });
+    }
+
+    private void renderRows(int width, int height, int top, int bottom, CellWriter writer) {
+        Point imageCenter = new Point(width / 2, height / 2);
+        Rect band = new Rect(-imageCenter.x(), top - imageCenter.y(), width, bottom - top);
+        tessellation.forEachTileIn(band, (u, v, permutation, x, y) -> {
+            Orientation o = tessellation.getOrientation(permutation);
+            Matrix<Boolean> bitmap = o.bitmap();
+            int left = x + imageCenter.x() - o.anchor().x(), tileTop = y + imageCenter.y() - o.anchor().y();
+            if(left < 0 || tileTop < 0) return;
+            if(left + bitmap.getWidth() > width || tileTop + bitmap.getHeight() > height) return;
+            int argb = colouring.colourOf(u, v, permutation, x, y);
+            int firstRow = Math.max(0, top - tileTop);
+            int lastRow = Math.min(bitmap.getHeight(), bottom - tileTop);
+            for (int i = firstRow; i < lastRow; i++) {
+                for (int j = 0; j < bitmap.getWidth(); j++) {
+                    if(bitmap.get(i, j)) writer.write(left + j, tileTop + i, argb);
+                }
+            }
+        });
+    }
+
+    private interface CellWriter {
+        void write(int x, int y, int argb);
+    }
+}
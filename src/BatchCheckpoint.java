@@ -0,0 +1,116 @@
+package src;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+//how far a batch had got, so an interrupted one can carry on where it stopped
+//results finish out of order, so it keeps done (every index below it is finished) and a bitmap of the indices past done
+//that finished early, only the searches that were running when it was taken are ever in the bitmap
+//outputLength is how much of the output file those results take up, anything after it is from results the checkpoint
+//doesnt know about and is cut off when resuming so they are written once
+//layout (big endian):
+//  int magic, short version, utf job, long outputLength, long searched, long done, int words, words x long bitmap
+public class BatchCheckpoint {
+    public static final int MAGIC = 0x42434b50;
+    public static final short VERSION = 1;
+    private String job;
+    private long outputLength = 0;
+    private long searched = 0;
+    private long done = 0;
+    private BitSet finished = new BitSet();
+
+    //job describes the batch (its source and settings), a checkpoint is only resumed by the same job
+    public BatchCheckpoint(String job) {
+        this.job = job;
+    }
+
+    public static BatchCheckpoint read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            if(in.readInt() != MAGIC) throw new IOException("Not a batch checkpoint");
+            short version = in.readShort();
+            if(version != VERSION) throw new IOException("Unsupported batch checkpoint version " + version);
+            BatchCheckpoint checkpoint = new BatchCheckpoint(in.readUTF());
+            checkpoint.outputLength = in.readLong();
+            checkpoint.searched = in.readLong();
+            checkpoint.done = in.readLong();
+            long[] words = new long[in.readInt()];
+            for (int i = 0; i < words.length; i++) words[i] = in.readLong();
+            checkpoint.finished = BitSet.valueOf(words);
+            return checkpoint;
+        }
+    }
+
+    //written beside the old one and renamed over it, so a crash leaves one whole checkpoint or the other
+    public void write(Path path) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeUTF(job);
+            out.writeLong(outputLength);
+            out.writeLong(searched);
+            out.writeLong(done);
+            long[] words = finished.toLongArray();
+            out.writeInt(words.length);
+            for (long word : words) out.writeLong(word);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public BatchCheckpoint copy() {
+        BatchCheckpoint copy = new BatchCheckpoint(job);
+        copy.outputLength = outputLength;
+        copy.searched = searched;
+        copy.done = done;
+        copy.finished = (BitSet)finished.clone();
+        return copy;
+    }
+
+    public String getJob() {
+        return job;
+    }
+
+    public long getOutputLength() {
+        return outputLength;
+    }
+
+    public long getSearched() {
+        return searched;
+    }
+
+    public long getDone() {
+        return done;
+    }
+
+    public boolean isFinished(long index) {
+        return index < done || (index - done < Integer.MAX_VALUE && finished.get((int)(index - done)));
+    }
+
+    void finish(long index, boolean search) {
+        if(isFinished(index)) return;
+        if(index - done >= Integer.MAX_VALUE) throw new IllegalArgumentException("Index " + index + " is too far past " + done);
+        if(search) searched++;
+        finished.set((int)(index - done));
+        //the bitmap only holds what is past the finished run at the start
+        int run = finished.nextClearBit(0);
+        if(run > 0) {
+            done += run;
+            finished = finished.get(run, Math.max(run, finished.length()));
+        }
+    }
+
+    void setOutputLength(long outputLength) {
+        this.outputLength = outputLength;
+    }
+}
@@ -0,0 +1,207 @@
+package src;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import src.util.GeometryUtil.*;
+import src.util.Grouping.Permutation;
+import src.util.Util.*;
+import static src.util.Grouping.D4;
+
+//runs a tiling search on every shape from a source and writes each result out as soon as it is found
+//the pool has a short queue and the reading thread runs a search itself when it is full,
+//so only the shapes being searched (and a few waiting) are ever held, however long the source is
+//results come out in the order they finish, each carries the index of its shape in the source
+//with a checkpoint file the progress is saved every so often (see BatchCheckpoint), and a run given a checkpoint
+//that already exists skips what it had finished and appends to the output after cutting off anything unrecorded
+public class BatchRunner {
+    public enum Format { JSON, BINARY }
+
+    private TilingSearch search;
+    private int threads;
+    private Format format;
+
+    public BatchRunner(TilingSearch search, int threads, Format format) {
+        if(threads <= 0) throw new IllegalArgumentException("Need at least one thread");
+        this.search = search;
+        this.threads = threads;
+        this.format = format;
+    }
+
+    //returns how many shapes were searched
+    public long run(ShapeSource shapes, Path output) throws IOException {
+        return run(shapes, output, null, "", Duration.ZERO);
+    }
+
+    //job has to match the checkpoint's to resume from it, the checkpoint is saved at most once per interval as results come in
+    //and once more at the end, returns how many shapes were searched including those before resuming
+    public long run(ShapeSource shapes, Path output, Path checkpoint, String job, Duration interval) throws IOException {
+        BatchCheckpoint progress = new BatchCheckpoint(job);
+        if(checkpoint != null && Files.exists(checkpoint)) {
+            progress = BatchCheckpoint.read(checkpoint);
+            if(!progress.getJob().equals(job)) throw new IllegalArgumentException("Checkpoint " + checkpoint + " is for another batch: " + progress.getJob());
+        }
+        try (FileChannel file = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if(file.size() < progress.getOutputLength()) throw new IOException("Output " + output + " is shorter than its checkpoint says");
+            file.truncate(progress.getOutputLength());
+            file.position(progress.getOutputLength());
+            try (ResultWriter writer = new ResultWriter(file, progress, checkpoint, interval)) {
+                run(shapes, writer, progress);
+                writer.saveCheckpoint();
+            }
+        }
+        return progress.getSearched();
+    }
+
+    private void run(ShapeSource shapes, ResultWriter writer, BatchCheckpoint progress) throws IOException {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        //the writer changes progress as results come in, what to skip is decided from how it was when loaded
+        BatchCheckpoint resumed = progress.copy();
+        try {
+            shapes.skip(resumed.getDone());
+            for (long index = resumed.getDone(); shapes.hasNext(); index++) {
+                long shapeIndex = index;
+                Shape shape;
+                try {
+                    shape = shapes.next();
+                } catch (IllegalArgumentException e) {
+                    //a line of an input file that isnt a shape
+                    if(!resumed.isFinished(shapeIndex)) writer.write(shapeIndex, null, e);
+                    continue;
+                }
+                //finished before the checkpoint but after some earlier index that wasnt
+                if(resumed.isFinished(shapeIndex)) continue;
+                pool.execute(() -> {
+                    try {
+                        writer.write(shapeIndex, shape, searchQuietly(shape));
+                    } catch (UncheckedIOException e) {
+                        failure.compareAndSet(null, e.getCause());
+                    }
+                });
+                if(failure.get() != null) break;
+            }
+        } catch (UncheckedIOException e) {
+            failure.compareAndSet(null, e.getCause());
+        } finally {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if(failure.get() != null) throw failure.get();
+    }
+
+    //a shape that cant be searched gets a result with its error instead of stopping the batch
+    private Object searchQuietly(Shape shape) {
+        try {
+            return search.search(shape);
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    private class ResultWriter implements AutoCloseable {
+        private FileChannel file;
+        private OutputStream out;
+        private DataOutputStream data;
+        private BatchCheckpoint progress;
+        private Path checkpoint;
+        private long interval;
+        private long lastCheckpoint = System.nanoTime();
+
+        private ResultWriter(FileChannel file, BatchCheckpoint progress, Path checkpoint, Duration interval) {
+            this.file = file;
+            this.out = new BufferedOutputStream(Channels.newOutputStream(file), 1 << 16);
+            this.data = new DataOutputStream(out);
+            this.progress = progress;
+            this.checkpoint = checkpoint;
+            this.interval = interval.toNanos();
+        }
+
+        //results and the checkpoint share the lock, so a saved checkpoint always matches the output up to its length
+        private synchronized void write(long index, Shape shape, Object result) {
+            try {
+                if(format == Format.JSON) writeJson(index, shape, result);
+                else writeBinary(index, shape, result);
+                out.flush();
+                progress.finish(index, shape != null);
+                if(System.nanoTime() - lastCheckpoint >= interval) saveCheckpoint();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        //the output is forced to disk first, a checkpoint never counts results that a crash could lose
+        private synchronized void saveCheckpoint() throws IOException {
+            if(checkpoint == null) return;
+            data.flush();
+            file.force(false);
+            progress.setOutputLength(file.position());
+            progress.write(checkpoint);
+            lastCheckpoint = System.nanoTime();
+        }
+
+        private void writeJson(long index, Shape shape, Object result) throws IOException {
+            String json;
+            if(result instanceof TilingSearch.Result found) {
+                json = "{\"index\":" + index + "," + TilingService.toJson(found).substring(1);
+            } else {
+                json = "{\"index\":" + index + (shape == null ? "" : ",\"shape\":" + TilingService.quote(shape.encode()))
+                    + ",\"error\":" + TilingService.quote(String.valueOf(((Exception)result).getMessage())) + "}";
+            }
+            out.write((json + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        //index, shape code (empty if it couldnt be read), status (1 tiles, 0 doesnt, 2 inconclusive, -1 error), then for a
+        //tiling the rules as (permutation index, x, y) and the two basis vectors, for an inconclusive one why as utf
+        private void writeBinary(long index, Shape shape, Object result) throws IOException {
+            data.writeLong(index);
+            data.writeUTF(shape == null ? "" : shape.encode());
+            if(!(result instanceof TilingSearch.Result found)) {
+                data.writeByte(-1);
+                return;
+            }
+            if(!found.isConclusive()) {
+                data.writeByte(2);
+                data.writeUTF(found.inconclusiveReason());
+                return;
+            }
+            data.writeByte(found.tiles() ? 1 : 0);
+            if(!found.tiles()) return;
+            data.writeByte(found.placements().size());
+            for (Pair<Permutation,Point> rule : found.placements()) {
+                data.writeByte(D4.indexOf(rule.a));
+                data.writeInt(rule.b.x());
+                data.writeInt(rule.b.y());
+            }
+            LatticeBasis lattice = found.tessellation().getLattice();
+            data.writeInt(lattice.getA().vx());
+            data.writeInt(lattice.getA().vy());
+            data.writeInt(lattice.getB().vx());
+            data.writeInt(lattice.getB().vy());
+        }
+
+        @Override
+        public void close() throws IOException {
+            data.flush();
+        }
+    }
+}
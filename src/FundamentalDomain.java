@@ -0,0 +1,95 @@
+package src;
+
+import java.util.Arrays;
+import java.util.List;
+
+import src.Tessellation.LatticeTile;
+import src.Tessellation.Orientation;
+import src.datastructs.*;
+import src.util.GeometryUtil.*;
+import static src.util.Grouping.D4;
+
+//a lookup table for the cells of one period of a tessellation
+//any cell of the plane is reduced into the parallelogram spanned by the basis vectors,
+//the table then says which tile (and how far away in the lattice) covers that residue cell
+public class FundamentalDomain {
+    private static final byte EMPTY = -1;
+    private Tessellation tessellation;
+    private LatticeBasis lattice;
+    private Parallelogram parallelogram;
+    private Rect bounds;
+    private int originX, originY;
+    private byte[] permutations;
+    private int[] shiftU;
+    private int[] shiftV;
+    private int cellsCovered = 0;
+
+    public FundamentalDomain(Tessellation tessellation) {
+        this.tessellation = tessellation;
+        this.lattice = tessellation.getLattice();
+        Vector origin = tessellation.offsetVectors.get(D4.ID);
+        originX = origin.vx();
+        originY = origin.vy();
+        parallelogram = new Parallelogram(tessellation.basisVector1, tessellation.basisVector2);
+        bounds = Rect.calculateRect(Arrays.asList(parallelogram.points));
+        permutations = new byte[bounds.width() * bounds.height()];
+        shiftU = new int[permutations.length];
+        shiftV = new int[permutations.length];
+        Arrays.fill(permutations, EMPTY);
+        for (Orientation o : tessellation.getOrientations()) {
+            fillOrientation(o);
+        }
+    }
+
+    //every cell of the tile at lattice origin with this orientation gets recorded at its residue
+    private void fillOrientation(Orientation o) {
+        Matrix<Boolean> bitmap = o.bitmap();
+        for (int i = 0; i < bitmap.getHeight(); i++) {
+            for (int j = 0; j < bitmap.getWidth(); j++) {
+                if(!bitmap.get(i, j)) continue;
+                long x = o.offset().vx() + j - o.anchor().x() - originX;
+                long y = o.offset().vy() + i - o.anchor().y() - originY;
+                long u = lattice.latticeX(x, y), v = lattice.latticeY(x, y);
+                int index = indexOf(x - lattice.realX(u, v), y - lattice.realY(u, v));
+                if(index < 0 || permutations[index] != EMPTY) continue;
+                permutations[index] = (byte)o.index();
+                shiftU[index] = (int)u;
+                shiftV[index] = (int)v;
+                cellsCovered++;
+            }
+        }
+    }
+
+    private int indexOf(long rx, long ry) {
+        if(rx < bounds.x() || rx >= bounds.x() + bounds.width()) return -1;
+        if(ry < bounds.y() || ry >= bounds.y() + bounds.height()) return -1;
+        return (int)(ry - bounds.y()) * bounds.width() + (int)(rx - bounds.x());
+    }
+
+    //the tile covering the cell at (x,y), or null if the tessellation leaves it empty
+    public LatticeTile tileAt(int x, int y) {
+        long rx = (long)x - originX, ry = (long)y - originY;
+        long u = lattice.latticeX(rx, ry), v = lattice.latticeY(rx, ry);
+        int index = indexOf(rx - lattice.realX(u, v), ry - lattice.realY(u, v));
+        if(index < 0 || permutations[index] == EMPTY) return null;
+        Orientation o = tessellation.getOrientation(permutations[index]);
+        long tileU = u - shiftU[index], tileV = v - shiftV[index];
+        int centerX = (int)lattice.realX(tileU, tileV) + o.offset().vx();
+        int centerY = (int)lattice.realY(tileU, tileV) + o.offset().vy();
+        return new LatticeTile((int)tileU, (int)tileV, o.index(), centerX, centerY);
+    }
+
+    //a proper tessellation covers every residue exactly once
+    public boolean isComplete() {
+        return cellsCovered == lattice.area() && cellsCovered == tessellation.getOrientations().size() * shapeArea();
+    }
+
+    private int shapeArea() {
+        List<Boolean> cells = tessellation.shape.getBitmap().toList();
+        return (int)cells.stream().filter(b -> b).count();
+    }
+
+    public Parallelogram getParallelogram() {
+        return parallelogram;
+    }
+}
@@ -1,6 +1,136 @@
 package src;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import src.metrics.Metrics;
+import src.util.GeometryUtil.Range;
+
+//no arguments opens the window
+//serve [--port n | --socket path] [--cache entries] [--coronas n] [--time-limit ms] [--max-side n] [--metrics]
+//      answers tiling queries on localhost
+//batch (--size a..b | --random n [--seed s] [--size a..b] | --input file) --out file [--threads n] [--coronas n] [--format json|binary]
+//      [--checkpoint file [--every seconds]] [--metrics]
+//searches every shape from the source and streams the results to the file, with a checkpoint running it again carries on
+//--metrics prints the stage counters and latencies (see Metrics) to stderr when the command exits
 public class Main {
-    public static void main(String[] args) {
-        new Window(); 
+    public static void main(String[] args) throws IOException {
+        if(args.length == 0) {
+            new Window();
+            return;
+        }
+        switch(args[0]) {
+            case "serve" -> serve(args);
+            case "batch" -> batch(args);
+            default -> usage("Unknown command " + args[0]);
+        }
     }
-}
\ No newline at end of file
+
+    private static void serve(String[] args) throws IOException {
+        int port = 7654, cache = 10000, coronas = 5000, timeLimit = 10000, maxSide = 8;
+        boolean metrics = false;
+        Path socket = null;
+        for (int i = 1; i < args.length; i++) {
+            switch(args[i]) {
+                case "--port" -> port = Integer.parseInt(value(args, ++i));
+                case "--socket" -> socket = Path.of(value(args, ++i));
+                case "--cache" -> cache = Integer.parseInt(value(args, ++i));
+                case "--coronas" -> coronas = Integer.parseInt(value(args, ++i));
+                case "--time-limit" -> timeLimit = Integer.parseInt(value(args, ++i));
+                case "--max-side" -> maxSide = Integer.parseInt(value(args, ++i));
+                case "--metrics" -> metrics = true;
+                default -> usage("Unknown option " + args[i]);
+            }
+        }
+        TilingService service = new TilingService(new TilingSearch(coronas, Duration.ofMillis(timeLimit)), cache, maxSide);
+        TilingServer server = new TilingServer(service, socket != null ? TilingServer.unixSocket(socket) : TilingServer.localPort(port));
+        boolean printMetrics = metrics;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                //exiting anyway
+            }
+            if(printMetrics) System.err.print(Metrics.report());
+        }));
+        System.err.println("Serving tiling queries on " + (socket != null ? socket : "localhost:" + port));
+        server.serve();
+    }
+
+    private static void batch(String[] args) throws IOException {
+        Range size = null;
+        Integer random = null;
+        Long seed = null;
+        Path input = null, out = null, checkpoint = null;
+        int threads = Runtime.getRuntime().availableProcessors(), coronas = 5000, every = 30;
+        boolean metrics = false;
+        BatchRunner.Format format = BatchRunner.Format.JSON;
+        for (int i = 1; i < args.length; i++) {
+            switch(args[i]) {
+                case "--size" -> size = range(value(args, ++i));
+                case "--random" -> random = Integer.parseInt(value(args, ++i));
+                case "--seed" -> seed = Long.parseLong(value(args, ++i));
+                case "--input" -> input = Path.of(value(args, ++i));
+                case "--out" -> out = Path.of(value(args, ++i));
+                case "--threads" -> threads = Integer.parseInt(value(args, ++i));
+                case "--coronas" -> coronas = Integer.parseInt(value(args, ++i));
+                case "--format" -> format = BatchRunner.Format.valueOf(value(args, ++i).toUpperCase());
+                case "--checkpoint" -> checkpoint = Path.of(value(args, ++i));
+                case "--every" -> every = Integer.parseInt(value(args, ++i));
+                case "--metrics" -> metrics = true;
+                default -> usage("Unknown option " + args[i]);
+            }
+        }
+        if(out == null) usage("batch needs --out");
+        //a resumed random batch has to make the same shapes again
+        if(random != null && seed == null && checkpoint != null) usage("batch --random needs --seed to use a checkpoint");
+        ShapeSource shapes;
+        String job;
+        if(input != null) {
+            shapes = ShapeSource.file(input);
+            //an edited file would pair old results with new lines, so its size and time are part of the job
+            job = "input " + input.toAbsolutePath() + " bytes " + Files.size(input) + " modified " + Files.getLastModifiedTime(input).toMillis();
+        } else if(random != null) {
+            if(size == null) size = new Range(2, 4);
+            shapes = ShapeSource.random(random, size, seed != null ? seed : System.nanoTime());
+            job = "random " + random + " seed " + seed + " size " + size;
+        } else if(size != null) {
+            shapes = ShapeSource.bySize(size);
+            job = "size " + size;
+        } else {
+            usage("batch needs --size, --random or --input");
+            return;
+        }
+        job += " coronas " + coronas + " format " + format;
+        long start = System.nanoTime();
+        long searched;
+        try (shapes) {
+            searched = new BatchRunner(new TilingSearch(coronas), threads, format).run(shapes, out, checkpoint, job, Duration.ofSeconds(every));
+        }
+        System.err.printf("Searched %d shapes in %.1fs%n", searched, (System.nanoTime() - start) / 1e9);
+        if(metrics) System.err.print(Metrics.report());
+    }
+
+    //a..b, or a single number for both ends
+    private static Range range(String text) {
+        String[] ends = text.split("\\.\\.");
+        int min = Integer.parseInt(ends[0]);
+        return new Range(min, ends.length > 1 ? Integer.parseInt(ends[1]) : min);
+    }
+
+    static String value(String[] args, int i) {
+        if(i >= args.length) usage("Missing value for " + args[i - 1]);
+        return args[i];
+    }
+
+    static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("usage: Main");
+        System.err.println("       Main serve [--port n | --socket path] [--cache entries] [--coronas n] [--time-limit ms] [--max-side n] [--metrics]");
+        System.err.println("       Main batch (--size a..b | --random n [--seed s] [--size a..b] | --input file) --out file");
+        System.err.println("                  [--threads n] [--coronas n] [--format json|binary] [--checkpoint file [--every seconds]] [--metrics]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,183 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import src.Tessellation.LatticeTile;
+import src.Tessellation.Orientation;
+import src.util.GeometryUtil.*;
+import static src.util.Grouping.D4;
+
+import java.awt.Color;
+
+//a proper colouring of a tessellation (no two neighbouring tiles share a colour) that repeats over the lattice
+//spanned by m1 * basisVector1 and m2 * basisVector2, found once on the finite quotient graph:
+//tile (u, v, perm) becomes vertex (u mod m1, v mod m2, perm) and neighbour rules become edges
+//any colouring of that graph is a colouring of the whole tessellation, so colouring a tile is just a table lookup
+//the search tries the fewest colours first and then the smallest repeats, skipping repeats where a tile would
+//have to neighbour its own copy
+//it is best effort: each attempt has a step budget and one that runs out counts as no colouring, so fewer colours
+//are only known to be impossible (for repeats up to MAX_REPEAT) when isMinimal says so
+public class PeriodicColouring implements TileColouring {
+    private static final int MAX_REPEAT = 6;
+    private static final int SEARCH_LIMIT = 1 << 16;
+    private int m1, m2;
+    private int order = D4.getOrder();
+    private int[] colours;
+    private int colourCount;
+    private LatticeBasis repeat;
+    private boolean minimal;
+
+    private PeriodicColouring(Tessellation tessellation, int m1, int m2, int[] colours, Color[] palette, boolean minimal) {
+        this.minimal = minimal;
+        this.m1 = m1;
+        this.m2 = m2;
+        this.colours = new int[colours.length];
+        for (int i = 0; i < colours.length; i++) {
+            this.colours[i] = colours[i] < 0 ? Color.WHITE.getRGB() : palette[colours[i]].getRGB();
+        }
+        this.colourCount = (int)Arrays.stream(colours).filter(c -> c >= 0).distinct().count();
+        Vector a = tessellation.basisVector1, b = tessellation.basisVector2;
+        this.repeat = new LatticeBasis(new Vector(a.vx() * m1, a.vy() * m1), new Vector(b.vx() * m2, b.vy() * m2));
+    }
+
+    //the colouring with the fewest colours from the palette (taken in order) that the search finds,
+    //throws if none is found with the whole palette
+    public static PeriodicColouring find(Tessellation tessellation, Color[] palette) {
+        boolean exhausted = false;
+        for (int k = 1; k <= palette.length; k++) {
+            for (int size = 1; size <= MAX_REPEAT * MAX_REPEAT; size++) {
+                for (int m1 = 1; m1 <= MAX_REPEAT; m1++) {
+                    if(size % m1 != 0 || size / m1 > MAX_REPEAT) continue;
+                    QuotientGraph graph = new QuotientGraph(tessellation, m1, size / m1);
+                    int[] colours = graph.colour(k);
+                    if(colours != null) return new PeriodicColouring(tessellation, m1, size / m1, colours, palette, !exhausted);
+                    exhausted |= graph.exhausted;
+                }
+            }
+        }
+        throw new IllegalStateException("No periodic colouring of " + tessellation.shape + " with " + palette.length + " colours"
+            + (exhausted ? " was found, some searches ran out of steps" : ""));
+    }
+
+    @Override
+    public int colourOf(LatticeTile tile) {
+        return colourOf(tile.u(), tile.v(), tile.permutation(), tile.x(), tile.y());
+    }
+
+    @Override
+    public int colourOf(int u, int v, int permutation, int x, int y) {
+        return colours[vertex(Math.floorMod(u, m1), Math.floorMod(v, m2), permutation)];
+    }
+
+    //the lattice the colouring repeats over, for PeriodicRenderer
+    public LatticeBasis getRepeat() {
+        return repeat;
+    }
+
+    public int colourCount() {
+        return colourCount;
+    }
+
+    //true when every smaller number of colours was shown impossible for the repeats tried, rather than given up on
+    public boolean isMinimal() {
+        return minimal;
+    }
+
+    private int vertex(int i, int j, int permutation) {
+        return (i * m2 + j) * order + permutation;
+    }
+
+    //tiles modulo the repeat lattice, vertices that arent an orientation of the tessellation have no edges
+    private static class QuotientGraph {
+        private int m1, m2, order = D4.getOrder();
+        private int[][] edges;
+        private boolean[] present;
+        private boolean selfLoop = false;
+        private boolean exhausted = false;
+
+        private QuotientGraph(Tessellation tessellation, int m1, int m2) {
+            this.m1 = m1;
+            this.m2 = m2;
+            int vertices = m1 * m2 * order;
+            List<Set<Integer>> neighbours = new ArrayList<>();
+            for (int v = 0; v < vertices; v++) neighbours.add(new TreeSet<>());
+            present = new boolean[vertices];
+            for (Orientation o : tessellation.getOrientations()) {
+                for (RelativeRule r : tessellation.virtualNeighbourMap.get(o.permutation())) {
+                    //the rule every tile has for itself
+                    if(r.point.equals(Point.ORIGIN) && r.permutation.equals(o.permutation())) continue;
+                    for (int i = 0; i < m1; i++) {
+                        for (int j = 0; j < m2; j++) {
+                            int from = vertex(i, j, o.index());
+                            int to = vertex(i + r.point.x(), j + r.point.y(), D4.indexOf(r.permutation));
+                            if(from == to) selfLoop = true;
+                            present[from] = true;
+                            neighbours.get(from).add(to);
+                            neighbours.get(to).add(from);
+                        }
+                    }
+                }
+            }
+            edges = neighbours.stream().map(set -> set.stream().mapToInt(Integer::intValue).toArray()).toArray(int[][]::new);
+        }
+
+        private int vertex(int i, int j, int permutation) {
+            return (Math.floorMod(i, m1) * m2 + Math.floorMod(j, m2)) * order + permutation;
+        }
+
+        //backtracking with at most k colours, null if there isnt one or the search ran out of steps, which sets exhausted
+        //vertices are taken in breadth first order so each one is tied to those already coloured
+        private int[] colour(int k) {
+            if(selfLoop) return null;
+            int[] colours = new int[edges.length];
+            Arrays.fill(colours, -1);
+            int[] budget = {SEARCH_LIMIT};
+            if(assign(breadthFirstOrder(), 0, colours, k, budget)) return colours;
+            exhausted = budget[0] < 0;
+            return null;
+        }
+
+        private int[] breadthFirstOrder() {
+            boolean[] seen = new boolean[edges.length];
+            int[] order = new int[edges.length];
+            int count = 0;
+            for (int start = 0; start < edges.length; start++) {
+                if(!present[start] || seen[start]) continue;
+                seen[start] = true;
+                order[count++] = start;
+                for (int head = count - 1; head < count; head++) {
+                    for (int neighbour : edges[order[head]]) {
+                        if(seen[neighbour]) continue;
+                        seen[neighbour] = true;
+                        order[count++] = neighbour;
+                    }
+                }
+            }
+            return Arrays.copyOf(order, count);
+        }
+
+        private boolean assign(int[] vertices, int position, int[] colours, int k, int[] budget) {
+            if(position == vertices.length) return true;
+            if(--budget[0] < 0) return false;
+            int vertex = vertices[position];
+            for (int c = 0; c < k; c++) {
+                boolean clash = false;
+                for (int neighbour : edges[vertex]) {
+                    if(colours[neighbour] == c) {
+                        clash = true;
+                        break;
+                    }
+                }
+                if(clash) continue;
+                colours[vertex] = c;
+                if(assign(vertices, position + 1, colours, k, budget)) return true;
+            }
+            colours[vertex] = -1;
+            return false;
+        }
+    }
+}
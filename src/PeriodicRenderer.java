@@ -0,0 +1,92 @@
+package src;
+
+import java.util.Arrays;
+
+import src.util.GeometryUtil.*;
+
+import java.awt.Color;
+
+//draws a tessellation by rasterising a single period of it and copying that everywhere else
+//the lattice is put in hermite normal form {<period,0>,<shift,height>}, then one period x height patch
+//is rendered (edge tiles clipped), each of the first rows is built from the patch by doubling copies along the row
+//and once the pattern repeats vertically whole blocks of rows are doubled down the image
+//so past the patch the cost is just System.arraycopy
+//the colouring has to give tiles a lattice step apart the same colour, for colourings that only repeat
+//over a coarser lattice (a sublattice of the tessellation's) pass that instead
+//unlike BandRenderer tiles crossing the image edge are drawn clipped, the image is what renderRegion would give
+public class PeriodicRenderer {
+    private static final int BACKGROUND = Color.WHITE.getRGB();
+    private int period, shift, periodRows;
+    private int[] patch;
+    private Rect patchRegion;
+    private BandRenderer renderer;
+
+    public PeriodicRenderer(Tessellation tessellation, TileColouring colouring) {
+        this(tessellation, colouring, tessellation.getLattice());
+    }
+
+    public PeriodicRenderer(Tessellation tessellation, TileColouring colouring, LatticeBasis repeat) {
+        LatticeBasis lattice = tessellation.getLattice();
+        if(!lattice.contains(repeat.getA()) || !lattice.contains(repeat.getB())) {
+            throw new IllegalArgumentException("Colouring repeat " + repeat + " is not a sublattice of " + lattice);
+        }
+        LatticeBasis normal = repeat.hermiteNormalForm();
+        this.period = normal.getA().vx();
+        this.shift = normal.getB().vx();
+        this.periodRows = normal.getB().vy();
+        this.renderer = new BandRenderer(tessellation, colouring, periodRows);
+    }
+
+    public void render(Plane plane) {
+        renderImage(plane.getPixels(), plane.getWidth(), plane.getHeight());
+        plane.occupyRows(0, plane.getHeight());
+    }
+
+    //fills a width x height row major image whose center is the tessellation origin
+    public void renderImage(int[] pixels, int width, int height) {
+        if(width <= 0 || height <= 0) return;
+        int originX = -(width / 2), originY = -(height / 2);
+        int[] patch = renderPatch(originX, originY);
+        //row y + repeatRows is always the same as row y
+        long repeatRows = (long)periodRows * (period / gcd(shift, period));
+        int firstRows = (int)Math.min(height, repeatRows);
+        for (int y = 0; y < firstRows; y++) {
+            int k = y / periodRows, row = y - k * periodRows;
+            int start = Math.floorMod(-(long)k * shift, period);
+            fillRow(pixels, y * width, width, patch, row * period, start);
+        }
+        for (int copied = firstRows; copied < height; ) {
+            int rows = Math.min(copied, height - copied);
+            System.arraycopy(pixels, 0, pixels, copied * width, rows * width);
+            copied += rows;
+        }
+    }
+
+    //the period x periodRows patch whose top left cell is (x,y), kept while the image origin stays the same
+    private synchronized int[] renderPatch(int x, int y) {
+        Rect region = new Rect(x, y, period, periodRows);
+        if(region.equals(patchRegion)) return patch;
+        int[] rendered = new int[period * periodRows];
+        Arrays.fill(rendered, BACKGROUND);
+        renderer.renderRegion(rendered, 0, period, region);
+        patch = rendered;
+        patchRegion = region;
+        return rendered;
+    }
+
+    //a row starting at patch column start, the row repeats every period so it can be doubled onto itself
+    private void fillRow(int[] pixels, int offset, int width, int[] patch, int patchOffset, int start) {
+        int first = Math.min(width, period - start);
+        System.arraycopy(patch, patchOffset + start, pixels, offset, first);
+        if(first < width) System.arraycopy(patch, patchOffset, pixels, offset + first, Math.min(width - first, start));
+        for (int filled = Math.min(width, period); filled < width; ) {
+            int n = Math.min(filled, width - filled);
+            System.arraycopy(pixels, offset, pixels, offset + filled, n);
+            filled += n;
+        }
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+}
@@ -0,0 +1,91 @@
+package src;
+
+import java.util.stream.IntStream;
+
+import src.Tessellation.LatticeTile;
+import src.util.GeometryUtil.*;
+
+import java.awt.Color;
+
+//works out every output pixel on its own, no graph and no placing of bitmaps
+//one period of the colouring is looked up once through the fundamental domain into a colour table laid out
+//over the hermite normal form {<period,0>,<shift,rows>} of the repeat lattice, after that a cell (x,y) reduces to
+//table row y mod rows and column (x - shift * floor(y / rows)) mod period, which is all the per pixel work
+//rows are independent so they are spread over a parallel stream, any viewport and zoom can be drawn
+public class PixelRenderer {
+    private static final int BACKGROUND = Color.WHITE.getRGB();
+    private int period, shift, periodRows;
+    private int[] table;
+
+    public PixelRenderer(Tessellation tessellation, TileColouring colouring) {
+        this(tessellation, colouring, tessellation.getLattice());
+    }
+
+    //repeat is the lattice the colouring repeats over, which has to be a sublattice of the tessellation's
+    public PixelRenderer(Tessellation tessellation, TileColouring colouring, LatticeBasis repeat) {
+        LatticeBasis lattice = tessellation.getLattice();
+        if(!lattice.contains(repeat.getA()) || !lattice.contains(repeat.getB())) {
+            throw new IllegalArgumentException("Colouring repeat " + repeat + " is not a sublattice of " + lattice);
+        }
+        LatticeBasis normal = repeat.hermiteNormalForm();
+        period = normal.getA().vx();
+        shift = normal.getB().vx();
+        periodRows = normal.getB().vy();
+        table = new int[period * periodRows];
+        for (int y = 0; y < periodRows; y++) {
+            for (int x = 0; x < period; x++) {
+                LatticeTile tile = tessellation.tileAt(x, y);
+                table[y * period + x] = tile == null ? BACKGROUND : colouring.colourOf(tile);
+            }
+        }
+    }
+
+    //the colour of the cell at (x,y) in tessellation coordinates
+    public int colourAt(long x, long y) {
+        long k = Math.floorDiv(y, periodRows);
+        return table[(int)(y - k * periodRows) * period + (int)Math.floorMod(x - k * shift, (long)period)];
+    }
+
+    public void render(Plane plane) {
+        renderImage(plane.getPixels(), plane.getWidth(), plane.getHeight());
+        plane.occupyRows(0, plane.getHeight());
+    }
+
+    //a width x height row major image, one pixel per cell, whose center is the tessellation origin
+    public void renderImage(int[] pixels, int width, int height) {
+        render(pixels, width, height, -(width / 2), -(height / 2), 1);
+    }
+
+    //pixel (i,j) shows cell (left + i * cellsPerPixel, top + j * cellsPerPixel)
+    //so cellsPerPixel 1 is one pixel per cell and larger steps zoom out by sampling every cellsPerPixel'th cell
+    public void render(int[] pixels, int width, int height, long left, long top, long cellsPerPixel) {
+        //which table column each pixel starts from, before the row's shift
+        long[] columns = new long[width];
+        for (int i = 0; i < width; i++) columns[i] = left + i * cellsPerPixel;
+        IntStream.range(0, height).parallel().forEach(j -> {
+            long y = top + j * cellsPerPixel;
+            long k = Math.floorDiv(y, periodRows);
+            int rowStart = (int)(y - k * periodRows) * period;
+            long rowShift = k * shift;
+            int offset = j * width;
+            for (int i = 0; i < width; i++) {
+                pixels[offset + i] = table[rowStart + (int)Math.floorMod(columns[i] - rowShift, (long)period)];
+            }
+        });
+    }
+
+    //pixelsPerCell > 1 zooms in, each cell becomes a pixelsPerCell square
+    public void renderZoomedIn(int[] pixels, int width, int height, long left, long top, int pixelsPerCell) {
+        IntStream.range(0, height).parallel().forEach(j -> {
+            long y = top + Math.floorDiv(j, pixelsPerCell);
+            long k = Math.floorDiv(y, periodRows);
+            int rowStart = (int)(y - k * periodRows) * period;
+            long rowShift = k * shift;
+            int offset = j * width;
+            for (int i = 0; i < width; i++) {
+                long x = left + i / pixelsPerCell;
+                pixels[offset + i] = table[rowStart + (int)Math.floorMod(x - rowShift, (long)period)];
+            }
+        });
+    }
+}
@@ -1,5 +1,7 @@
 package src;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
 
 import src.util.GeometryUtil.*;
 import src.util.GeometryUtil.Point;
@@ -7,26 +9,90 @@ import src.datastructs.*;
 
 import java.awt.*;
 
+//works straight on the images int[] raster, which cells are taken is kept in a separate bitset
+//each row of the bitset starts on a fresh long so disjoint rows can be written from different threads
 public class Plane {
     private BufferedImage image;
+    private int[] pixels;
+    private long[] occupied;
+    private int occupiedStride;
     private int width,height;
     private static final Color DEF_COLOR = Color.WHITE;
-    
+
     public Plane(int width, int height) {
         this.width = width;
         this.height = height;
         image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                image.setRGB(j, i, DEF_COLOR.getRGB());
-            }
-        }
+        pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+        occupiedStride = (width + 63) >>> 6;
+        occupied = new long[occupiedStride * height];
+        clear();
     }
 
     public BufferedImage getImage() {
         return image;
     }
 
+    //row major, index y * width + x, writing to it doesnt take the cells so call occupyRows after a bulk write
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getRGB(int x, int y) {
+        return pixels[y * width + x];
+    }
+
+    public boolean isOccupied(int x, int y) {
+        return (occupied[y * occupiedStride + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    public void setOccupied(int x, int y) {
+        occupied[y * occupiedStride + (x >>> 6)] |= 1L << x;
+    }
+
+    //colours and takes a single cell without checking it
+    public void setPixel(int x, int y, int argb) {
+        pixels[y * width + x] = argb;
+        setOccupied(x, y);
+    }
+
+    //takes every cell of rows fromRow (inclusive) to toRow (exclusive), for after they are written through getPixels
+    public void occupyRows(int fromRow, int toRow) {
+        if(fromRow >= toRow) return;
+        Arrays.fill(occupied, fromRow * occupiedStride, toRow * occupiedStride, -1L);
+        //bits past the width stay clear like fillRow leaves them
+        if((width & 63) == 0) return;
+        long last = -1L >>> (64 - (width & 63));
+        for (int y = fromRow; y < toRow; y++) occupied[y * occupiedStride + occupiedStride - 1] = last;
+    }
+
+    public void clear() {
+        Arrays.fill(pixels, DEF_COLOR.getRGB());
+        Arrays.fill(occupied, 0L);
+    }
+
+    //colours and takes a run of cells in one row without checking them
+    public void fillRow(int x, int y, int length, int argb) {
+        if(length <= 0) return;
+        int start = y * width + x;
+        Arrays.fill(pixels, start, start + length, argb);
+        int last = x + length - 1;
+        for (int word = x >>> 6; word <= last >>> 6; word++) {
+            long mask = -1L;
+            if(word == x >>> 6) mask &= -1L << x;
+            if(word == last >>> 6) mask &= -1L >>> (63 - (last & 63));
+            occupied[y * occupiedStride + word] |= mask;
+        }
+    }
+
     public boolean placeBitmap(Point p, Matrix<Boolean> bm, Color color) {
         int bmw=bm.getWidth(), bmh=bm.getHeight();
         Rect plane = new Rect(0, 0, width - bmw + 1, height - bmh + 1);
@@ -34,14 +100,16 @@ public class Plane {
         //checking if its safe
         for (int i = 0; i < bmh; i++) {
             for (int j = 0; j < bmw; j++) {
-                Color c = new Color(image.getRGB(j+p.x(), i+p.y()));
-                if(bm.get(i,j) && !c.equals(DEF_COLOR)) return false;
+                if(bm.get(i,j) && isOccupied(j+p.x(), i+p.y())) return false;
             }
         }
         //placing
+        int argb = color.getRGB();
         for (int i = 0; i < bmh; i++) {
             for (int j = 0; j < bmw; j++) {
-                if(bm.get(i,j)) image.setRGB(j+p.x(), i+p.y(), color.getRGB());
+                if(!bm.get(i,j)) continue;
+                pixels[(i+p.y()) * width + j+p.x()] = argb;
+                setOccupied(j+p.x(), i+p.y());
             }
         }
         return true;
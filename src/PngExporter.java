@@ -0,0 +1,131 @@
+package src;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import java.awt.Color;
+
+//writes a tessellation as a png without ever holding the whole image
+//the image is rendered a strip of rows at a time and each strip goes straight through deflate into IDAT chunks,
+//so memory is width x stripHeight however large the image is
+//the image matches a Plane of the same size drawn with the same colouring (tessellation origin at the center)
+public class PngExporter {
+    private static final byte[] SIGNATURE = {(byte)0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int BACKGROUND = Color.WHITE.getRGB();
+    //the largest array the jvm will reliably make
+    private static final long MAX_ARRAY = Integer.MAX_VALUE - 8;
+    private BandRenderer renderer;
+    private int stripHeight;
+
+    public PngExporter(Tessellation tessellation, TileColouring colouring, int stripHeight) {
+        if(stripHeight <= 0) throw new IllegalArgumentException("Strip height must be positive");
+        this.renderer = new BandRenderer(tessellation, colouring, stripHeight);
+        this.stripHeight = stripHeight;
+    }
+
+    public void export(Path path, int width, int height) throws IOException {
+        if(width <= 0 || height <= 0) throw new IllegalArgumentException("Image must have a size");
+        //a strip and an encoded row are single arrays, so their sizes are worked out in long before anything is made
+        long stripCells = (long)width * Math.min(stripHeight, height);
+        long rowBytes = 1 + (long)width * 4;
+        if(rowBytes > MAX_ARRAY) throw new IllegalArgumentException("Image is too wide, a row of " + width + " pixels takes " + rowBytes + " bytes");
+        if(stripCells > MAX_ARRAY) throw new IllegalArgumentException("Strips of " + stripHeight + " rows of " + width + " pixels are too large, use a smaller strip height");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(SIGNATURE));
+            ByteBuffer header = ByteBuffer.allocate(13);
+            header.putInt(width).putInt(height).put((byte)8).put((byte)6).put((byte)0).put((byte)0).put((byte)0);
+            writeChunk(channel, "IHDR", header.array(), 13);
+
+            int[] strip = new int[(int)stripCells];
+            byte[] row = new byte[(int)rowBytes];
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+            try (OutputStream idat = new DeflaterOutputStream(new ChunkStream(channel), deflater, CHUNK_SIZE)) {
+                for (int top = 0, bottom; top < height; top = bottom) {
+                    bottom = (int)Math.min(height, (long)top + stripHeight);
+                    Arrays.fill(strip, BACKGROUND);
+                    renderer.renderRows(strip, width, height, top, bottom);
+                    for (int y = 0; y < bottom - top; y++) {
+                        encodeRow(strip, y * width, width, row);
+                        idat.write(row);
+                    }
+                }
+            } finally {
+                deflater.end();
+            }
+            writeChunk(channel, "IEND", new byte[0], 0);
+        }
+    }
+
+    //filter type 0 followed by the row as rgba
+    private static void encodeRow(int[] pixels, int offset, int width, byte[] row) {
+        row[0] = 0;
+        for (int x = 0, i = 1; x < width; x++) {
+            int argb = pixels[offset + x];
+            row[i++] = (byte)(argb >> 16);
+            row[i++] = (byte)(argb >> 8);
+            row[i++] = (byte)argb;
+            row[i++] = (byte)(argb >>> 24);
+        }
+    }
+
+    private static void writeChunk(FileChannel channel, String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        ByteBuffer chunk = ByteBuffer.allocate(12 + length);
+        chunk.putInt(length).put(typeBytes).put(data, 0, length).putInt((int)crc.getValue()).flip();
+        while(chunk.hasRemaining()) channel.write(chunk);
+    }
+
+    //collects deflated bytes and writes them out as IDAT chunks
+    private static class ChunkStream extends OutputStream {
+        private FileChannel channel;
+        private byte[] buffer = new byte[CHUNK_SIZE];
+        private int count = 0;
+
+        private ChunkStream(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if(count == buffer.length) flush();
+            buffer[count++] = (byte)b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while(len > 0) {
+                if(count == buffer.length) flush();
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if(count == 0) return;
+            writeChunk(channel, "IDAT", buffer, count);
+            count = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
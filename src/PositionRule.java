@@ -0,0 +1,28 @@
+package src;
+
+import src.util.GeometryUtil.*;
+import static src.util.Grouping.D4;
+import src.util.Grouping.Permutation;
+
+public abstract class PositionRule {
+    public Permutation permutation;
+    public Point point;
+
+    public PositionRule(Permutation perm, Point point) {
+        this.permutation = perm;
+        this.point = point;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(!(obj instanceof PositionRule rule)) return false;
+        boolean samePerm = permutation.equals(rule.permutation);
+        boolean samePoint = point.equals(rule.point);
+        return (samePerm && samePoint);
+    }
+
+    @Override
+    public String toString() {
+        return D4.getLabel(permutation) + "@" + point;
+    }
+}
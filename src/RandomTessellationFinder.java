@@ -6,11 +6,17 @@ import src.util.GeometryUtil.*;
 import src.datastructs.*;
 
 public class RandomTessellationFinder {
-    private static Random random = new Random(System.nanoTime());
+    private Random random;
     private DoubleRange doubleRange;
 
     public RandomTessellationFinder(DoubleRange doubleRange) {
+        this(doubleRange, System.nanoTime());
+    }
+
+    //the same seed gives the same shapes
+    public RandomTessellationFinder(DoubleRange doubleRange, long seed) {
         this.doubleRange = doubleRange;
+        this.random = new Random(seed);
     }
 
     public Tessellation randomTessellation() {
@@ -0,0 +1,35 @@
+package src;
+
+import src.util.GeometryUtil.*;
+import static src.util.Grouping.D4;
+import src.util.Grouping.Permutation;
+
+//this code declares that you will find a shape with this permutation at this point
+public class RelativeRule extends PositionRule {
+    public int declaringCode;
+    public boolean incorrect = false;
+
+    public RelativeRule(int declaringCode, Permutation perm, Point point) {
+        super(perm, point);
+        this.declaringCode = declaringCode;
+    }
+
+    public RelativeRule adjust(Point change) {
+        return new RelativeRule(declaringCode, permutation, point.add(change));
+    }
+
+    @Override
+    public String toString() {
+        return "{" + declaringCode + ":" + super.toString() + (incorrect ? "X" : "?") + "}";
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(!(obj instanceof RelativeRule rule)) return false;
+        return super.equals(obj) && rule.declaringCode == declaringCode;
+    }
+
+    public RelativeRule transform(Permutation permutation) {
+        return new RelativeRule(declaringCode, D4.apply(this.permutation, permutation), point.transform(permutation));
+    }
+}
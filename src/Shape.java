@@ -85,6 +85,48 @@ public class Shape {
         return bitmap.pointAfterPermutation(center, Permutation);
     }
 
+    //rows top to bottom split by '/', '#' for a cell of the shape and '.' for an empty one
+    public String encode() {
+        StringBuilder code = new StringBuilder();
+        for (int i = 0; i < bitmap.getHeight(); i++) {
+            if(i > 0) code.append('/');
+            for (int j = 0; j < bitmap.getWidth(); j++) {
+                code.append(bitmap.get(i, j) ? '#' : '.');
+            }
+        }
+        return code.toString();
+    }
+
+    public static Shape decode(String code) {
+        String[] rows = code.trim().split("/");
+        int width = rows[0].length();
+        Matrix<Boolean> bitmap = new Matrix<>(width, rows.length, false);
+        for (int i = 0; i < rows.length; i++) {
+            if(rows[i].length() != width) throw new IllegalArgumentException("Rows of " + code + " differ in length");
+            for (int j = 0; j < width; j++) {
+                char c = rows[i].charAt(j);
+                if(c != '#' && c != '.') throw new IllegalArgumentException("Unexpected '" + c + "' in " + code);
+                bitmap.set(i, j, c == '#');
+            }
+        }
+        return new Shape(bitmap);
+    }
+
+    //the same shape in whichever orientation has the smallest encoding, so all 8 orientations share one
+    public Shape canonical() {
+        String best = null;
+        Matrix<Boolean> bestBitmap = bitmap;
+        for (Permutation permutation : D4.getPermutations()) {
+            Matrix<Boolean> transformed = bitmap.transform(permutation);
+            String code = new Shape(transformed).encode();
+            if(best == null || code.compareTo(best) < 0) {
+                best = code;
+                bestBitmap = transformed;
+            }
+        }
+        return new Shape(bestBitmap);
+    }
+
     public static void main(String[] args) {
         SQUARE.bitmap.print();
         
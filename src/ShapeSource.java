@@ -0,0 +1,183 @@
+package src;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import src.datastructs.*;
+import src.util.GeometryUtil.*;
+
+//where a batch gets its shapes from, shapes are made one at a time as they are asked for
+public interface ShapeSource extends Iterator<Shape>, Closeable {
+    @Override
+    default void close() throws IOException {}
+
+    //moves past the next n shapes, for carrying on from a checkpoint
+    default void skip(long n) {
+        for (long i = 0; i < n && hasNext(); i++) {
+            try {
+                next();
+            } catch (IllegalArgumentException e) {
+                //an unreadable shape still takes up its index
+            }
+        }
+    }
+
+    //every connected shape filling a w x h bitmap for w and h in the range, each only in its canonical orientation
+    static ShapeSource bySize(Range size) {
+        return new SizeRange(size);
+    }
+
+    //count random shapes with both sides in the range, the same seed gives the same shapes
+    static ShapeSource random(int count, Range size, long seed) {
+        RandomTessellationFinder finder = new RandomTessellationFinder(new DoubleRange(size, size), seed);
+        return new ShapeSource() {
+            private int made = 0;
+
+            @Override
+            public boolean hasNext() {
+                return made < count;
+            }
+
+            @Override
+            public Shape next() {
+                if(!hasNext()) throw new NoSuchElementException();
+                made++;
+                return finder.randomShape();
+            }
+        };
+    }
+
+    //one shape per line as Shape.encode writes them, blank lines are skipped
+    static ShapeSource file(Path path) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+        return new ShapeSource() {
+            private String line = read();
+
+            private String read() {
+                try {
+                    String next;
+                    while((next = reader.readLine()) != null && next.isBlank());
+                    return next;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return line != null;
+            }
+
+            @Override
+            public Shape next() {
+                if(!hasNext()) throw new NoSuchElementException();
+                String code = line;
+                line = read();
+                return Shape.decode(code);
+            }
+
+            @Override
+            public void skip(long n) {
+                for (long i = 0; i < n && line != null; i++) line = read();
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+
+    //walks the bitmaps of each size as the bits of a counter, skipping the ones that arent wanted
+    //a side of 5 is already 2^25 bitmaps a size, so that is the largest it goes to, the checks on each bitmap are done
+    //on the bits and only the ones that pass become a Shape to have their orientation compared
+    class SizeRange implements ShapeSource {
+        public static final int MAX_SIDE = 5;
+        private Range size;
+        private int width, height;
+        private long mask = 0;
+        private Shape next;
+
+        private SizeRange(Range size) {
+            this.size = size;
+            this.width = size.min();
+            this.height = size.min();
+            if(size.min() < 1 || size.max() > MAX_SIDE) throw new IllegalArgumentException("Shapes of size " + size + " are too many to enumerate, sides go from 1 to " + MAX_SIDE);
+            next = advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Shape next() {
+            if(next == null) throw new NoSuchElementException();
+            Shape shape = next;
+            next = advance();
+            return shape;
+        }
+
+        private Shape advance() {
+            while(width <= size.max()) {
+                while(mask < 1L << (width * height)) {
+                    long bits = mask++;
+                    if(!fills(width, height, bits) || !connected(width, height, bits)) continue;
+                    Shape shape = new Shape(bitmap(width, height, bits));
+                    if(shape.encode().equals(shape.canonical().encode())) return shape;
+                }
+                mask = 0;
+                if(++height > size.max()) {
+                    height = size.min();
+                    width++;
+                }
+            }
+            return null;
+        }
+
+        //every row and every column has a cell, like Shape.wellFitted
+        private static boolean fills(int width, int height, long mask) {
+            long row = (1L << width) - 1, columns = 0;
+            for (int i = 0; i < height; i++) {
+                long cells = mask >>> (i * width) & row;
+                if(cells == 0) return false;
+                columns |= cells;
+            }
+            return columns == row;
+        }
+
+        //spreads from the lowest cell a step at a time in all four directions until it stops growing
+        private static boolean connected(int width, int height, long mask) {
+            long notFirstColumn = 0, notLastColumn = 0;
+            for (int i = 0; i < height; i++) {
+                notFirstColumn |= ((1L << width) - 2) << (i * width);
+                notLastColumn |= ((1L << (width - 1)) - 1) << (i * width);
+            }
+            long reached = mask & -mask, previous = 0;
+            while(reached != previous) {
+                previous = reached;
+                reached |= (reached << 1 & notFirstColumn) | (reached >>> 1 & notLastColumn) | reached << width | reached >>> width;
+                reached &= mask;
+            }
+            return reached == mask;
+        }
+
+        private static Matrix<Boolean> bitmap(int width, int height, long mask) {
+            Matrix<Boolean> bitmap = new Matrix<>(width, height, false);
+            for (int i = 0; i < height; i++) {
+                for (int j = 0; j < width; j++) {
+                    bitmap.set(i, j, (mask >>> (i * width + j) & 1) != 0);
+                }
+            }
+            return bitmap;
+        }
+    }
+}
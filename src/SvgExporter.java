@@ -0,0 +1,122 @@
+package src;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import src.Tessellation.Orientation;
+import src.datastructs.*;
+import src.util.GeometryUtil.*;
+
+//writes a region of a tessellation as an svg for print
+//the outline of every orientation is traced into a path once and put in <defs>, each tile is then a single <use>
+//of its orientation's path moved to its center, so the file grows with the number of tiles and not the resolution
+//tiles are written as they come from the lattice, nothing but the outlines is kept
+//the view box is the region, so tiles crossing its edge are clipped like with renderRegion
+public class SvgExporter {
+    private Tessellation tessellation;
+    private TileColouring colouring;
+    private Map<Integer, String> outlines = new HashMap<>();
+
+    public SvgExporter(Tessellation tessellation, TileColouring colouring) {
+        this.tessellation = tessellation;
+        this.colouring = colouring;
+        for (Orientation o : tessellation.getOrientations()) {
+            outlines.put(o.index(), outline(o.bitmap(), o.anchor()));
+        }
+    }
+
+    public void export(Path path, Rect region) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            write(writer, region);
+        }
+    }
+
+    public void write(Writer out, Rect region) throws IOException {
+        BufferedWriter writer = out instanceof BufferedWriter buffered ? buffered : new BufferedWriter(out);
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" version=\"1.1\"");
+        writer.write(" viewBox=\"" + region.x() + " " + region.y() + " " + region.width() + " " + region.height() + "\"");
+        writer.write(" width=\"" + region.width() + "\" height=\"" + region.height() + "\" shape-rendering=\"crispEdges\">\n");
+        writer.write("<defs>\n");
+        for (Orientation o : tessellation.getOrientations()) {
+            writer.write("<path id=\"o" + o.index() + "\" d=\"" + outlines.get(o.index()) + "\"/>\n");
+        }
+        writer.write("</defs>\n");
+        writer.write("<rect x=\"" + region.x() + "\" y=\"" + region.y() + "\" width=\"" + region.width() + "\" height=\"" + region.height() + "\" fill=\"#ffffff\"/>\n");
+        IOException[] failure = {null};
+        tessellation.forEachTileIn(region, (u, v, permutation, x, y) -> {
+            if(failure[0] != null) return;
+            try {
+                writer.write("<use xlink:href=\"#o" + permutation + "\" x=\"" + x + "\" y=\"" + y
+                    + "\" fill=\"" + hex(colouring.colourOf(u, v, permutation, x, y)) + "\"/>\n");
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if(failure[0] != null) throw failure[0];
+        writer.write("</svg>\n");
+        writer.flush();
+    }
+
+    private static String hex(int argb) {
+        return String.format("#%06x", argb & 0xffffff);
+    }
+
+    //the boundary of the filled cells as closed rectilinear loops, relative to the anchor (the tile's center)
+    //edges go clockwise round the cells so holes come out the other way round and the nonzero fill rule leaves them empty
+    static String outline(Matrix<Boolean> bitmap, Point anchor) {
+        Map<Point, Deque<Point>> edges = new HashMap<>();
+        for (int i = 0; i < bitmap.getHeight(); i++) {
+            for (int j = 0; j < bitmap.getWidth(); j++) {
+                if(!filled(bitmap, i, j)) continue;
+                if(!filled(bitmap, i - 1, j)) addEdge(edges, j, i, j + 1, i);
+                if(!filled(bitmap, i, j + 1)) addEdge(edges, j + 1, i, j + 1, i + 1);
+                if(!filled(bitmap, i + 1, j)) addEdge(edges, j + 1, i + 1, j, i + 1);
+                if(!filled(bitmap, i, j - 1)) addEdge(edges, j, i + 1, j, i);
+            }
+        }
+        StringBuilder path = new StringBuilder();
+        while(!edges.isEmpty()) {
+            Point start = edges.keySet().iterator().next();
+            path.append('M').append(start.x() - anchor.x()).append(' ').append(start.y() - anchor.y());
+            Point current = start, next = takeEdge(edges, start);
+            while(!next.equals(start)) {
+                Point after = takeEdge(edges, next);
+                //only the corners are written, straight runs of edges become one line
+                boolean turns = (after.x() - next.x() != next.x() - current.x()) || (after.y() - next.y() != next.y() - current.y());
+                if(turns) {
+                    if(next.y() == current.y()) path.append('H').append(next.x() - anchor.x());
+                    else path.append('V').append(next.y() - anchor.y());
+                }
+                current = next;
+                next = after;
+            }
+            path.append('Z');
+        }
+        return path.toString();
+    }
+
+    private static boolean filled(Matrix<Boolean> bitmap, int i, int j) {
+        if(i < 0 || j < 0 || i >= bitmap.getHeight() || j >= bitmap.getWidth()) return false;
+        return bitmap.get(i, j);
+    }
+
+    private static void addEdge(Map<Point, Deque<Point>> edges, int x1, int y1, int x2, int y2) {
+        edges.computeIfAbsent(new Point(x1, y1), p -> new ArrayDeque<>()).add(new Point(x2, y2));
+    }
+
+    private static Point takeEdge(Map<Point, Deque<Point>> edges, Point from) {
+        Deque<Point> out = edges.get(from);
+        Point to = out.poll();
+        if(out.isEmpty()) edges.remove(from);
+        return to;
+    }
+}
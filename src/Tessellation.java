@@ -1,43 +1,103 @@
 package src;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import java.awt.Color;
 
 import src.datastructs.*;
+import src.metrics.Events;
+import src.metrics.Metrics;
 import src.util.GeometryUtil.*;
-import src.util.Util.*;
 import static src.util.Grouping.D4;
 import src.util.Grouping.Permutation;
 
 public class Tessellation {
+    private static final boolean DEBUG = false;
     public Shape shape;
     public Map<Permutation, List<RelativeRule>> virtualNeighbourMap = new HashMap<>();
     public Map<Permutation, Vector> offsetVectors = new HashMap<>();
     public Vector basisVector1;
     public Vector basisVector2;
-    public HashGraph<Point,Permutation,Boolean> hashGraph = new HashGraph<>();
+    private LatticeBasis lattice;
+    private List<Orientation> orientations;
+    private Orientation[] orientationsByIndex;
+    private FundamentalDomain fundamentalDomain;
+    private PeriodicColouring colouring;
+    private HashGraph hashGraph;
+    //a rebuilt tessellation only grows its graph when something first walks it
+    private boolean graphPending = false;
+    //how many rings the graph is grown to when it is set up, later growth is up to growHashGraph
+    private int radius;
+    //frontier is what is left to expand of the ring being grown, nextRing is what that ring has created so far
+    private HashGraph.NodeQueue frontier = new HashGraph.NodeQueue();
+    private HashGraph.NodeQueue nextRing = new HashGraph.NodeQueue();
+    public static final int DEFAULT_RADIUS = 20;
     public static Color[] colorCodes = {Color.cyan, Color.pink, Color.green, Color.yellow, Color.red,  Color.magenta, Color.orange, Color.lightGray, Color.darkGray};
     public static Color[] coolColorCodes = {new Color(3,51,71), new Color(129,160,225), new Color(8,142,199), new Color(150,212,203), Color.orange};
 
     public Tessellation(Shape shape, List<RelativeRule> rules) {
+        this(shape, rules, DEFAULT_RADIUS);
+    }
+
+    //radius is how many rings of tiles around the origin the graph starts with, 0 is only the origin tile
+    public Tessellation(Shape shape, List<RelativeRule> rules, int radius) {
+        if(radius < 0) throw new IllegalArgumentException("Radius cant be negative: " + radius);
+        this.radius = radius;
+        long start = System.nanoTime();
+        Events.TessellationConstruction event = new Events.TessellationConstruction();
+        event.begin();
         this.shape = shape;
-        System.out.println("Creating a new shape from " + rules);
+        if(DEBUG) System.out.println("Creating a new shape from " + rules);
         Map<Permutation, List<RelativeRule>> relativeRuleMap = calculateRelativeRuleMap(rules);
-        System.out.println(relativeRuleMap);
+        if(DEBUG) System.out.println(relativeRuleMap);
         Map<Permutation, Set<Point>> examplePointsMap = generateMoreExamplePoints(relativeRuleMap);
         calculateOffsetVectors(examplePointsMap);
         Set<Point> centeredPoints = getCenteredPoints(examplePointsMap);
         deriveBasisVectors(centeredPoints);
         findBetterOffsetVectors(examplePointsMap);
+        calculateOrientations();
+        fundamentalDomain = new FundamentalDomain(this);
         generateVirtualNeighbourMap(relativeRuleMap);
-        setupHashGraph();
+        setupHashGraph(true);
+        event.orientations = orientations.size();
+        event.latticeArea = lattice.area();
+        event.nodesCreated = hashGraph.size();
+        event.commit();
+        Metrics.TESSELLATION.record(System.nanoTime() - start, event.nodesCreated);
+    }
+
+    //rebuilds a tessellation from already derived parts, skipping all of the rule derivation
+    public Tessellation(Shape shape, Vector basisVector1, Vector basisVector2, 
+    Map<Permutation, Vector> offsetVectors, Map<Permutation, List<RelativeRule>> virtualNeighbourMap) {
+        this(shape, basisVector1, basisVector2, offsetVectors, virtualNeighbourMap, DEFAULT_RADIUS);
+    }
+
+    //the graph is grown to radius rings when it is first walked
+    public Tessellation(Shape shape, Vector basisVector1, Vector basisVector2, 
+    Map<Permutation, Vector> offsetVectors, Map<Permutation, List<RelativeRule>> virtualNeighbourMap, int radius) {
+        if(radius < 0) throw new IllegalArgumentException("Radius cant be negative: " + radius);
+        this.radius = radius;
+        this.shape = shape;
+        this.basisVector1 = basisVector1;
+        this.basisVector2 = basisVector2;
+        this.lattice = new LatticeBasis(basisVector1, basisVector2);
+        this.offsetVectors.putAll(offsetVectors);
+        this.virtualNeighbourMap.putAll(virtualNeighbourMap);
+        calculateOrientations();
+        fundamentalDomain = new FundamentalDomain(this);
+        setupHashGraph(false);
     }
 
     //creating the relative rule map
@@ -94,7 +154,7 @@ public class Tessellation {
 
         Point secondBasisEstimate = basisVector1.toPoint().transform(D4.get("90"));
 
-        basisVector2 = centeredPoints.stream().filter(secondBasisEstimate.toLine()::pointOnLine)
+        basisVector2 = centeredPoints.stream().filter(p -> p.cross(secondBasisEstimate) == 0)
         .min(Comparator.comparingInt(Point::non0EulerDistance)).orElse(null).pointOnRight().toVector();
         
         if(basisVector1.toPoint().angle() > basisVector2.toPoint().angle()) {
@@ -102,18 +162,24 @@ public class Tessellation {
             basisVector1 = basisVector2;
             basisVector2 = temp;
         }
+        lattice = new LatticeBasis(basisVector1, basisVector2);
     }
 
     public Point realToVirtual(Point point, Permutation permutation) {
         Vector offset = offsetVectors.get(permutation);
-        return point.sub(offset).matrixMultiplyInverse(basisVector1, basisVector2);
+        return new Point((int)lattice.latticeX(point.x() - offset.vx(), point.y() - offset.vy()),
+            (int)lattice.latticeY(point.x() - offset.vx(), point.y() - offset.vy()));
     }
 
     public Point virtualToReal(Point point, Permutation permutation) {
         Vector offset = offsetVectors.get(permutation);
-        return point.matrixMultiply(basisVector1, basisVector2).add(offset);
+        return new Point((int)lattice.realX(point.x(), point.y()) + offset.vx(), (int)lattice.realY(point.x(), point.y()) + offset.vy());
     } 
 
+    public LatticeBasis getLattice() {
+        return lattice;
+    }
+
     public void generateVirtualNeighbourMap(Map<Permutation, List<RelativeRule>> relativeRuleMap) {
         for (Permutation mainPermutation : relativeRuleMap.keySet()) {
             virtualNeighbourMap.put(mainPermutation, relativeRuleMap.get(mainPermutation).stream().map(r -> {
@@ -126,49 +192,294 @@ public class Tessellation {
     public void findBetterOffsetVectors(Map<Permutation, Set<Point>> examplePointsMap) {
         Predicate<Point> centerParallelogram = p -> realToVirtual(p, D4.ID).equals(Point.ORIGIN);
         for (Permutation permutation : examplePointsMap.keySet()) {
-            System.out.println(permutation + " -examplePoints>>> " + examplePointsMap);
+            if(DEBUG) System.out.println(permutation + " -examplePoints>>> " + examplePointsMap);
             Point offset = examplePointsMap.get(permutation).stream().filter(centerParallelogram).min(Comparator.comparingInt(Point::eulerDistance)).orElse(null);
             offsetVectors.put(permutation, offset.toVector());
         }
     }
 
-    public Point shapeCenter(HashGraph<Point,Permutation,Boolean>.Cluster.Node node) {
-        return virtualToReal(node.getCluster().getKey(), node.getKey());
+    //caching the transformed bitmap of every permutation that appears in the tessellation
+    private void calculateOrientations() {
+        orientations = offsetVectors.keySet().stream()
+        .sorted(Comparator.comparingInt(D4::indexOf))
+        .map(perm -> new Orientation(D4.indexOf(perm), perm, offsetVectors.get(perm), 
+            shape.getCenterTransformed(perm), shape.getBitmap().transform(perm)))
+        .toList();
+        orientationsByIndex = new Orientation[D4.getOrder()];
+        orientations.forEach(o -> orientationsByIndex[o.index] = o);
     }
 
-    public void setupHashGraph() {
-        hashGraph.setNeighbourFunction((kp) -> {
-            List<RelativeRule> ruleList = virtualNeighbourMap.get(kp.key2);
-            return ruleList.stream().map(r -> hashGraph.new KeyPair(r.point.add(kp.key1), r.permutation)).toList();
-        });
+    public List<Orientation> getOrientations() {
+        return orientations;
+    }
 
-        var node = hashGraph.put(new Point(0,0), D4.ID, true);
-        for(int i=0;i<20;i++) {
-            hashGraph.traverse(node).forEach(n -> n.createNeighbours(true));
+    public Orientation getOrientation(int index) {
+        return orientationsByIndex[index];
+    }
+
+    //every tile whose bitmap overlaps the rect, worked out straight from the lattice without the graph
+    //a convenience for the odd caller, every tile is boxed into a LatticeTile, hot paths use forEachTileIn with a TileVisitor
+    public Stream<LatticeTile> tilesIn(Rect rect) {
+        int[] bounds = latticeBounds(rect);
+        return IntStream.rangeClosed(bounds[2], bounds[3]).boxed()
+        .flatMap(v -> orientations.stream().flatMap(o -> {
+            int[] us = uRange(v, o, rect);
+            return IntStream.rangeClosed(us[0], us[1]).mapToObj(u -> tileIfOverlapping(u, v, o, rect));
+        }))
+        .filter(Objects::nonNull);
+    }
+
+    public void forEachTileIn(Rect rect, Consumer<LatticeTile> consumer) {
+        forEachTileIn(rect, (u, v, permutation, x, y) -> consumer.accept(new LatticeTile(u, v, permutation, x, y)));
+    }
+
+    //the same walk with the tile handed over as its parts, so nothing is allocated per tile
+    public void forEachTileIn(Rect rect, TileVisitor visitor) {
+        int[] bounds = latticeBounds(rect);
+        for (int v = bounds[2]; v <= bounds[3]; v++) {
+            for (Orientation o : orientations) {
+                int[] us = uRange(v, o, rect);
+                for (int u = us[0]; u <= us[1]; u++) {
+                    int x = u * basisVector1.vx() + v * basisVector2.vx() + o.offset.vx();
+                    int y = u * basisVector1.vy() + v * basisVector2.vy() + o.offset.vy();
+                    if(overlaps(o, x, y, rect)) visitor.visit(u, v, o.index, x, y);
+                }
+            }
         }
     }
 
-    public void drawToPlane(Plane plane) {
-        Rect rect = new Rect(0, 0, plane.getImage().getWidth(), plane.getImage().getHeight());
-        Permutation permutation;
-        Point point;
-        Color color = Color.white;
-        List<Color> neighbourColors;
-        for (var node : hashGraph.traverse(hashGraph.get(Point.ORIGIN, D4.ID))) {
-            permutation = node.getKey();
-            point = shapeCenter(node).add(plane.center());
-            neighbourColors = node.getPresentNeighbours().stream().map(n -> {
-                return shapeCenter(n).add(plane.center());
-            }).map(p -> {
-                if(!rect.inside(p)) return 0;
-                return plane.getImage().getRGB(p.x(), p.y());
-            }).distinct().map(i -> new Color(i, true)).toList();
-            for(int i=0;i<4;i++) {
-                if(neighbourColors.contains(coolColorCodes[i])) continue;
-                else color = coolColorCodes[i]; break;
+    private LatticeTile tileIfOverlapping(int u, int v, Orientation o, Rect rect) {
+        int x = u * basisVector1.vx() + v * basisVector2.vx() + o.offset.vx();
+        int y = u * basisVector1.vy() + v * basisVector2.vy() + o.offset.vy();
+        return overlaps(o, x, y, rect) ? new LatticeTile(u, v, o.index, x, y) : null;
+    }
+
+    //whether a tile of orientation o centered at (x,y) touches the rect
+    private static boolean overlaps(Orientation o, int x, int y, Rect rect) {
+        int left = x - o.anchor().x(), top = y - o.anchor().y();
+        return left < rect.x() + rect.width() && left + o.bitmap().getWidth() > rect.x()
+            && top < rect.y() + rect.height() && top + o.bitmap().getHeight() > rect.y();
+    }
+
+    //the range of u {uMin,uMax} for which a tile of this orientation in lattice row v touches the rect
+    private int[] uRange(int v, Orientation o, Rect rect) {
+        long rowX = (long)v * basisVector2.vx() + o.offset.vx(), rowY = (long)v * basisVector2.vy() + o.offset.vy();
+        long minX = rect.x() + o.anchor.x() - o.bitmap.getWidth() + 1 - rowX;
+        long maxX = rect.x() + rect.width() - 1 + o.anchor.x() - rowX;
+        long minY = rect.y() + o.anchor.y() - o.bitmap.getHeight() + 1 - rowY;
+        long maxY = rect.y() + rect.height() - 1 + o.anchor.y() - rowY;
+        long[] xs = multiplesBetween(basisVector1.vx(), minX, maxX);
+        long[] ys = multiplesBetween(basisVector1.vy(), minY, maxY);
+        return new int[]{(int)Math.max(xs[0], ys[0]), (int)Math.min(xs[1], ys[1])};
+    }
+
+    //the range of u for which c * u lies in [min, max]
+    private static long[] multiplesBetween(long c, long min, long max) {
+        if(c == 0) return min <= 0 && 0 <= max ? new long[]{Integer.MIN_VALUE, Integer.MAX_VALUE} : new long[]{1, 0};
+        if(c < 0) return multiplesBetween(-c, -max, -min);
+        return new long[]{-Math.floorDiv(-min, c), Math.floorDiv(max, c)};
+    }
+
+    //smallest range of lattice coordinates {uMin,uMax,vMin,vMax} that can hold a tile overlapping the rect
+    //the corners are projected with the lattice's exact floor and ceiling so far out ranges dont lose a row to rounding
+    private int[] latticeBounds(Rect rect) {
+        long uMin = Long.MAX_VALUE, uMax = Long.MIN_VALUE, vMin = Long.MAX_VALUE, vMax = Long.MIN_VALUE;
+        for (Orientation o : orientations) {
+            //the centers a tile of this orientation can have while still touching the rect
+            long minX = (long)rect.x() + o.anchor.x() - o.bitmap.getWidth() + 1 - o.offset.vx();
+            long maxX = (long)rect.x() + rect.width() - 1 + o.anchor.x() - o.offset.vx();
+            long minY = (long)rect.y() + o.anchor.y() - o.bitmap.getHeight() + 1 - o.offset.vy();
+            long maxY = (long)rect.y() + rect.height() - 1 + o.anchor.y() - o.offset.vy();
+            for (long cx : new long[]{minX, maxX}) {
+                for (long cy : new long[]{minY, maxY}) {
+                    uMin = Math.min(uMin, lattice.latticeX(cx, cy));
+                    uMax = Math.max(uMax, lattice.latticeXCeil(cx, cy));
+                    vMin = Math.min(vMin, lattice.latticeY(cx, cy));
+                    vMax = Math.max(vMax, lattice.latticeYCeil(cx, cy));
+                }
+            }
+        }
+        return new int[]{(int)uMin, (int)uMax, (int)vMin, (int)vMax};
+    }
+
+    //which tile, and in which orientation, covers the cell at (x,y)
+    public LatticeTile tileAt(int x, int y) {
+        return fundamentalDomain.tileAt(x, y);
+    }
+
+    public FundamentalDomain getFundamentalDomain() {
+        return fundamentalDomain;
+    }
+
+    public Point shapeCenter(int node) {
+        return new Point(centerX(node), centerY(node));
+    }
+
+    private int centerX(int node) {
+        return (int)lattice.realX(hashGraph.x(node), hashGraph.y(node)) + orientationsByIndex[hashGraph.permutation(node)].offset.vx();
+    }
+
+    private int centerY(int node) {
+        return (int)lattice.realY(hashGraph.x(node), hashGraph.y(node)) + orientationsByIndex[hashGraph.permutation(node)].offset.vy();
+    }
+
+    //the graph starts as the origin tile, grown radius rings now or when first walked
+    //only run from the constructors, doing it again would drop the frontier of a graph that has already grown
+    //its neighbour rules are the virtual neighbour map laid out as arrays indexed by permutation
+    private void setupHashGraph(boolean grow) {
+        int[][] neighbourX = new int[D4.getOrder()][], neighbourY = new int[D4.getOrder()][], neighbourPermutation = new int[D4.getOrder()][];
+        for (int p = 0; p < D4.getOrder(); p++) {
+            List<RelativeRule> ruleList = virtualNeighbourMap.getOrDefault(D4.get(p), List.of());
+            neighbourX[p] = ruleList.stream().mapToInt(r -> r.point.x()).toArray();
+            neighbourY[p] = ruleList.stream().mapToInt(r -> r.point.y()).toArray();
+            neighbourPermutation[p] = ruleList.stream().mapToInt(r -> D4.indexOf(r.permutation)).toArray();
+        }
+        hashGraph = new HashGraph(neighbourX, neighbourY, neighbourPermutation);
+
+        frontier.clear();
+        nextRing.clear();
+        frontier.add(hashGraph.put(0, 0, D4.indexOf(D4.ID), 1));
+        graphPending = !grow;
+        if(grow) growHashGraph(radius, Integer.MAX_VALUE);
+    }
+
+    public HashGraph getHashGraph() {
+        growPendingGraph();
+        return hashGraph;
+    }
+
+    private void growPendingGraph() {
+        if(!graphPending) return;
+        graphPending = false;
+        growHashGraph(radius, Integer.MAX_VALUE);
+    }
+
+    //grows the graph outwards ring by ring, only expanding the nodes created by the previous ring
+    //stops early once tileBudget new nodes have been made, what is left of the ring is kept apart from what it has made
+    //so the next call finishes that ring first, which counts as one of its rings
+    //a node's neighbours are all made at once so the count can go over the budget by one node's neighbours,
+    //the number returned is what was actually made
+    public int growHashGraph(int rings, int tileBudget) {
+        growPendingGraph();
+        int created = 0;
+        for(int ring=0;ring<rings && created < tileBudget;ring++) {
+            while(!frontier.isEmpty() && created < tileBudget) {
+                created += hashGraph.createNeighbours(frontier.poll(), 1, nextRing::add);
             }
-            placeShape(permutation, point, color, plane);
+            if(!frontier.isEmpty() || !nextRing()) break;
         }
+        return created;
+    }
+
+    //the same as growHashGraph, but the neighbours missing around each node of a ring are looked for by the common fork join pool
+    //looking only reads the graph, the new nodes are then added by this thread in ring order so the graph stays single threaded,
+    //no node is added twice and the budget works the same as in growHashGraph
+    public int growHashGraphInParallel(int rings, int tileBudget) {
+        growPendingGraph();
+        int created = 0;
+        for(int ring=0;ring<rings && created < tileBudget;ring++) {
+            int[] current = new int[frontier.size()];
+            for (int i = 0; i < current.length; i++) current[i] = frontier.get(i);
+            frontier.clear();
+            long[][] missing = new long[current.length][];
+            IntStream.range(0, current.length).parallel().forEach(i -> missing[i] = missingNeighbours(current[i]));
+            int i = 0;
+            for (; i < current.length && created < tileBudget; i++) {
+                for (long key : missing[i]) {
+                    int node = hashGraph.putIfAbsent(HashGraph.unpackX(key), HashGraph.unpackY(key), HashGraph.unpackPermutation(key), 1);
+                    if(node == -1) continue;
+                    nextRing.add(node);
+                    created++;
+                }
+            }
+            for (; i < current.length; i++) frontier.add(current[i]);
+            if(!frontier.isEmpty() || !nextRing()) break;
+        }
+        return created;
+    }
+
+    //keys of the node's neighbours that arent in the graph yet
+    private long[] missingNeighbours(int node) {
+        long[] keys = new long[hashGraph.neighbourCount(node)];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            long key = hashGraph.neighbourKey(node, i);
+            if(hashGraph.find(key) == -1) keys[count++] = key;
+        }
+        return Arrays.copyOf(keys, count);
+    }
+
+    //moves on to the ring that has just been made, false if there is nothing left to grow
+    private boolean nextRing() {
+        HashGraph.NodeQueue finished = frontier;
+        frontier = nextRing;
+        nextRing = finished;
+        return !frontier.isEmpty();
+    }
+
+    //keeps the graph to the tiles around a view (in tessellation coordinates), for panning over an endless tessellation
+    //tiles further than margin from the view are evicted and missing ones are put back from their lattice coordinates,
+    //so the graph stays the same size however far the view moves and coming back gives the same nodes
+    public int slideWindow(Rect view, int margin) {
+        Rect window = new Rect(view.x() - margin, view.y() - margin, view.width() + 2 * margin, view.height() + 2 * margin);
+        //the window decides what is in the graph, the default rings would only be evicted again
+        graphPending = false;
+        int evicted = hashGraph.removeIf(node -> !overlaps(orientationsByIndex[hashGraph.permutation(node)], centerX(node), centerY(node), window));
+        //before anything is put back, as that can reuse the numbers of evicted nodes
+        frontier.removeIf(node -> !hashGraph.contains(node));
+        nextRing.removeIf(node -> !hashGraph.contains(node));
+        forEachTileIn(window, (u, v, permutation, x, y) -> {
+            int node = hashGraph.putIfAbsent(u, v, permutation, 1);
+            if(node != -1) frontier.add(node);
+        });
+        return evicted;
+    }
+
+    //draws the tiles of the graph with the periodic colouring, so neighbours never share a colour
+    //and the same tile gets the same colour however the tessellation is drawn
+    public void drawToPlane(Plane plane) {
+        long start = System.nanoTime();
+        Events.DrawToPlane event = new Events.DrawToPlane();
+        event.begin();
+        TileColouring colouring = getColouring();
+        Point planeCenter = plane.center();
+        int cells = (int)shape.getBitmap().toList().stream().filter(b -> b).count();
+        growPendingGraph();
+        IntConsumer draw = node -> {
+            Orientation o = orientationsByIndex[hashGraph.permutation(node)];
+            int x = centerX(node), y = centerY(node);
+            int argb = colouring.colourOf(hashGraph.x(node), hashGraph.y(node), o.index, x, y);
+            if(plane.placeBitmap(o.topLeft(x + planeCenter.x(), y + planeCenter.y()), o.bitmap, new Color(argb, true))) {
+                event.tilesDrawn++;
+                event.pixelsWritten += cells;
+            }
+        };
+        int origin = hashGraph.find(0, 0, D4.indexOf(D4.ID));
+        if(origin != -1) hashGraph.traverse(origin, draw);
+        else hashGraph.forEachNode(draw);
+        event.commit();
+        Metrics.DRAW.record(System.nanoTime() - start, event.pixelsWritten);
+    }
+
+    //the default colouring, worked out on first use
+    public synchronized PeriodicColouring getColouring() {
+        if(colouring == null) colouring = PeriodicColouring.find(this, coolColorCodes);
+        return colouring;
+    }
+
+    //places every tile that fits fully inside the plane straight from the lattice, the tessellation origin is the planes center
+    public void drawTilesToPlane(Plane plane, TileColouring colouring) {
+        Point planeCenter = plane.center();
+        forEachTileIn(new Rect(-planeCenter.x(), -planeCenter.y(), plane.getWidth(), plane.getHeight()), (u, v, permutation, x, y) -> {
+            Orientation o = orientationsByIndex[permutation];
+            Point topLeft = o.topLeft(x + planeCenter.x(), y + planeCenter.y());
+            plane.placeBitmap(topLeft, o.bitmap, new Color(colouring.colourOf(u, v, permutation, x, y), true));
+        });
+    }
+
+    //colours every tile by its orientation
+    public TileColouring orientationColouring() {
+        return tile -> coolColorCodes[tile.permutation() % coolColorCodes.length].getRGB();
     }
 
     public boolean placeShape(Permutation permutation, Point center, Color color, Plane plane) {
@@ -181,63 +492,26 @@ public class Tessellation {
         
     }
 
-    public static final Tessellation SMALL_L_2 = new TessellationSetup(Shape.SMALL_L_SHAPE,
-        new Pair<>(D4.ID, new Point(2, 0)),
-        new Pair<>(D4.ID, new Point(-2, 0)),
-        new Pair<>(D4.get("90"), new Point(0, -1)),
-        new Pair<>(D4.get("90"), new Point(2, -1)),
-        new Pair<>(D4.get("90"), new Point(0, 2)),
-        new Pair<>(D4.get("90"), new Point(2, 2)))
-        .toTessellation();
-
-    public static final Tessellation SQUARE_1 = new TessellationSetup(Shape.SQUARE,
-        new Pair<>(D4.ID, new Point(2, 0)),
-        new Pair<>(D4.ID, new Point(-2, 0)),
-        new Pair<>(D4.ID, new Point(0, -2)),
-        new Pair<>(D4.ID, new Point(0, 2))).toTessellation();
-
-    public static final Tessellation JAGGED_4 = new TessellationSetup(Shape.JAGGED,
-        new Pair<>(D4.ID, new Point(0, 2)),
-        new Pair<>(D4.ID, new Point(2, 0)),
-        new Pair<>(D4.get("90"), new Point(-1, 0)),
-        new Pair<>(D4.get("90"), new Point(1, 0)),
-        new Pair<>(D4.get("90"), new Point(-1, 2)),
-        new Pair<>(D4.get("90"), new Point(4, 5))).toTessellation();
-
-    public static final Tessellation BOWL_6 = new TessellationSetup(Shape.BOWL,
-        new Pair<>(D4.ID, new Point(8, 0)),
-        new Pair<>(D4.ID, new Point(-8, 0)),
-        new Pair<>(D4.get("18"), new Point(3, 0)),
-        new Pair<>(D4.get("18"), new Point(11, 0)),
-        new Pair<>(D4.get("18"), new Point(3, 5)),
-        new Pair<>(D4.get("18"), new Point(11, 5))).toTessellation();
-
-    public static final Tessellation DOMINO_5 = new TessellationSetup(Shape.DOMINO,
-        new Pair<>(D4.ID, new Point(0, 1)),
-        new Pair<>(D4.get("90"), new Point(-1, 0)),
-        new Pair<>(D4.get("90"), new Point(2, 0)),
-        new Pair<>(D4.get("90"), new Point(0, -2)),
-        new Pair<>(D4.get("90"), new Point(1, -2))).toTessellation();
-
-    public static final Tessellation DOMINO_4 = new TessellationSetup(Shape.DOMINO,
-        new Pair<>(D4.ID, new Point(-2, 0)),
-        new Pair<>(D4.ID, new Point(2, 0)),
-        new Pair<>(D4.ID, new Point(0, -1)),
-        new Pair<>(D4.ID, new Point(0, 1))).toTessellation();
-
-        public static final Tessellation DOMINO_6_STRAIGHT = new TessellationSetup(Shape.DOMINO,
-        new Pair<>(D4.ID, new Point(-2, 0)),
-        new Pair<>(D4.ID, new Point(2, 0)),
-        new Pair<>(D4.ID, new Point(-1, -1)),
-        new Pair<>(D4.ID, new Point(1, -1)),
-        new Pair<>(D4.ID, new Point(-1, 1)),
-        new Pair<>(D4.ID, new Point(1, 1))).toTessellation();
-
-        public static final Tessellation DOMINO_6_ZIG_ZAG = new TessellationSetup(Shape.DOMINO,
-        new Pair<>(D4.get("90"), new Point(-1, 0)),
-        new Pair<>(D4.get("90"), new Point(2, -1)),
-        new Pair<>(D4.ID, new Point(-1, -1)),
-        new Pair<>(D4.ID, new Point(1, 1)),
-        new Pair<>(D4.get("90"), new Point(1, -2)),
-        new Pair<>(D4.get("90"), new Point(0, 1))).toTessellation();
+    //one way a tile can sit in the tessellation, index is the permutations position in D4
+    public record Orientation(int index, Permutation permutation, Vector offset, Point anchor, Matrix<Boolean> bitmap) {
+        public Point topLeft(int centerX, int centerY) {
+            return new Point(centerX - anchor.x(), centerY - anchor.y());
+        }
+    }
+
+    //a tile at lattice position (u,v) with its center at (x,y), permutation is the index into D4
+    public record LatticeTile(int u, int v, int permutation, int x, int y) {
+        public Point center() {
+            return new Point(x, y);
+        }
+
+        public boolean overlaps(Orientation o, Rect rect) {
+            return Tessellation.overlaps(o, x, y, rect);
+        }
+    }
+
+    @FunctionalInterface
+    public interface TileVisitor {
+        void visit(int u, int v, int permutation, int x, int y);
+    }
 }
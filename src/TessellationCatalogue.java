@@ -0,0 +1,136 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import src.util.GeometryUtil.*;
+import src.util.Util.*;
+import static src.util.Grouping.D4;
+
+//named tessellations that are only set up the first time they are asked for
+public class TessellationCatalogue {
+    private Map<String, Entry> entries = new LinkedHashMap<>();
+
+    public TessellationCatalogue define(String name, Supplier<Tessellation> definition) {
+        entries.put(name, new Entry(definition));
+        return this;
+    }
+
+    //builds the tessellation on first access, null if the definition isnt a valid tessellation
+    //a definition that throws counts as not valid, the failure is kept (see getFailure) so it isnt built again
+    public Tessellation get(String name) {
+        Entry entry = entries.get(name);
+        if(entry == null) throw new IllegalArgumentException("No tessellation named " + name);
+        return entry.get();
+    }
+
+    //runs the definition again without touching the cached tessellation
+    public Tessellation create(String name) {
+        Entry entry = entries.get(name);
+        if(entry == null) throw new IllegalArgumentException("No tessellation named " + name);
+        return entry.definition.get();
+    }
+
+    //why the definition didnt give a tessellation, null if it did or hasnt been built
+    public RuntimeException getFailure(String name) {
+        Entry entry = entries.get(name);
+        return entry == null ? null : entry.failure;
+    }
+
+    public boolean isBuilt(String name) {
+        Entry entry = entries.get(name);
+        return entry != null && entry.built;
+    }
+
+    public List<String> names() {
+        return Collections.unmodifiableList(new ArrayList<>(entries.keySet()));
+    }
+
+    //builds every entry that hasnt been built yet in parallel, returning the names that didnt give a tessellation
+    public List<String> warmAll() {
+        return names().parallelStream().filter(name -> get(name) == null).toList();
+    }
+
+    private static class Entry {
+        private Supplier<Tessellation> definition;
+        private Tessellation tessellation;
+        private RuntimeException failure;
+        private volatile boolean built = false;
+
+        private Entry(Supplier<Tessellation> definition) {
+            this.definition = definition;
+        }
+
+        private Tessellation get() {
+            if(built) return tessellation;
+            synchronized(this) {
+                if(!built) {
+                    try {
+                        tessellation = definition.get();
+                    } catch (RuntimeException e) {
+                        failure = e;
+                    }
+                    built = true;
+                }
+            }
+            return tessellation;
+        }
+    }
+
+    public static final TessellationCatalogue BUILT_IN = new TessellationCatalogue()
+        .define("SMALL_L_2", () -> new TessellationSetup(Shape.SMALL_L_SHAPE,
+            new Pair<>(D4.ID, new Point(2, 0)),
+            new Pair<>(D4.ID, new Point(-2, 0)),
+            new Pair<>(D4.get("90"), new Point(0, -1)),
+            new Pair<>(D4.get("90"), new Point(2, -1)),
+            new Pair<>(D4.get("90"), new Point(0, 2)),
+            new Pair<>(D4.get("90"), new Point(2, 2))).toTessellation())
+        .define("SQUARE_1", () -> new TessellationSetup(Shape.SQUARE,
+            new Pair<>(D4.ID, new Point(2, 0)),
+            new Pair<>(D4.ID, new Point(-2, 0)),
+            new Pair<>(D4.ID, new Point(0, -2)),
+            new Pair<>(D4.ID, new Point(0, 2))).toTessellation())
+        .define("JAGGED_4", () -> new TessellationSetup(Shape.JAGGED,
+            new Pair<>(D4.ID, new Point(0, 2)),
+            new Pair<>(D4.ID, new Point(2, 0)),
+            new Pair<>(D4.get("90"), new Point(-1, 0)),
+            new Pair<>(D4.get("90"), new Point(1, 0)),
+            new Pair<>(D4.get("90"), new Point(-1, 2)),
+            new Pair<>(D4.get("90"), new Point(4, 5))).toTessellation())
+        .define("BOWL_6", () -> new TessellationSetup(Shape.BOWL,
+            new Pair<>(D4.ID, new Point(8, 0)),
+            new Pair<>(D4.ID, new Point(-8, 0)),
+            new Pair<>(D4.get("18"), new Point(3, 0)),
+            new Pair<>(D4.get("18"), new Point(11, 0)),
+            new Pair<>(D4.get("18"), new Point(3, 5)),
+            new Pair<>(D4.get("18"), new Point(11, 5))).toTessellation())
+        .define("DOMINO_5", () -> new TessellationSetup(Shape.DOMINO,
+            new Pair<>(D4.ID, new Point(0, 1)),
+            new Pair<>(D4.get("90"), new Point(-1, 0)),
+            new Pair<>(D4.get("90"), new Point(2, 0)),
+            new Pair<>(D4.get("90"), new Point(0, -2)),
+            new Pair<>(D4.get("90"), new Point(1, -2))).toTessellation())
+        .define("DOMINO_4", () -> new TessellationSetup(Shape.DOMINO,
+            new Pair<>(D4.ID, new Point(-2, 0)),
+            new Pair<>(D4.ID, new Point(2, 0)),
+            new Pair<>(D4.ID, new Point(0, -1)),
+            new Pair<>(D4.ID, new Point(0, 1))).toTessellation())
+        .define("DOMINO_6_STRAIGHT", () -> new TessellationSetup(Shape.DOMINO,
+            new Pair<>(D4.ID, new Point(-2, 0)),
+            new Pair<>(D4.ID, new Point(2, 0)),
+            new Pair<>(D4.ID, new Point(-1, -1)),
+            new Pair<>(D4.ID, new Point(1, -1)),
+            new Pair<>(D4.ID, new Point(-1, 1)),
+            new Pair<>(D4.ID, new Point(1, 1))).toTessellation())
+        .define("DOMINO_6_ZIG_ZAG", () -> new TessellationSetup(Shape.DOMINO,
+            new Pair<>(D4.get("90"), new Point(-1, 0)),
+            new Pair<>(D4.get("90"), new Point(2, -1)),
+            new Pair<>(D4.ID, new Point(-1, -1)),
+            new Pair<>(D4.ID, new Point(1, 1)),
+            new Pair<>(D4.get("90"), new Point(1, -2)),
+            new Pair<>(D4.get("90"), new Point(0, 1))).toTessellation());
+}
@@ -12,6 +12,8 @@ import java.awt.Color;
 import src.util.GeometryUtil.*;
 import src.util.Util.*;
 import src.datastructs.*;
+import src.metrics.Events;
+import src.metrics.Metrics;
 import static src.util.Grouping.D4;
 import src.util.Grouping.Permutation;
 
@@ -22,12 +24,15 @@ public class TessellationSetup {
     private int W;
     private int H;
     private Map<Integer, DefShape> defShapes = new HashMap<>();
+    private int numberOfShapes = 0;
+    private int rulesEliminated = 0;
+    private int permutationsDiscounted = 0;
     private Set<Permutation> favouredPermutations = new HashSet<>(List.of(D4.ID));
     private Point center;
     private Color[] colorCodes = {Color.black, Color.cyan, Color.pink, Color.green, Color.yellow, Color.red,  Color.magenta, Color.orange, Color.lightGray, Color.darkGray};
 
     public TessellationSetup(Shape shape) {
-        System.out.println("TESTING");
+        if(DEBUG) System.out.println("TESTING");
         this.shape = shape;
         int shapeWidth = shape.getBitmap().getWidth();
         int shapeHeight = shape.getBitmap().getHeight();
@@ -38,7 +43,7 @@ public class TessellationSetup {
         mat.setColorMap(i -> colorCodes[i]);
 
         center = new Point(maxDim, maxDim).add(shape.getCenter());
-        DefShape.NUMBER_OF_SHAPES = 0;
+        numberOfShapes = 0;
         addShape(D4.ID, center);
     }
 
@@ -51,12 +56,20 @@ public class TessellationSetup {
         setup();
     }
 
+    public TessellationSetup(Shape shape, List<Pair<Permutation,Point>> relativeRules) {
+        this(shape);
+        for (Pair<Permutation,Point> rule : relativeRules) {
+            addShape(rule.a, rule.b.add(center));
+        }
+        setup();
+    }
+
     public void reset() {
         mat.setorator((i,j) -> 0);
         defShapes.clear();
         favouredPermutations.clear();
         favouredPermutations.add(D4.ID);
-        DefShape.NUMBER_OF_SHAPES = 0;
+        numberOfShapes = 0;
         addShape(D4.ID, center);
     }
 
@@ -68,7 +81,7 @@ public class TessellationSetup {
         if(canPlace) {
             defShapes.put(defShape.code, defShape);
         } else {
-            DefShape.NUMBER_OF_SHAPES--;
+            numberOfShapes--;
         }
         return canPlace;
     }
@@ -108,13 +121,15 @@ public class TessellationSetup {
         if (DEBUG) System.out.println("Checking if valid...");
         if (DEBUG) System.out.println("border tiles occupied : " + areAllBorderTilesOccupied()); 
         if (DEBUG) System.out.println("border shapes following rules : " + doBorderShapesFollowRules());
-        print();
+        if (DEBUG) print();
         return areAllBorderTilesOccupied() && doBorderShapesFollowRules();
     }
 
     public boolean areAllBorderTilesOccupied() {
+        //border points are relative to the bitmap, which sits at center minus the shape's center
+        Point topLeft = center.sub(shape.getCenter());
         return shape.findBorderPoints().stream().allMatch(p -> {
-            return mat.get(p.y() + center.y(), p.x() + center.x()) != 0;
+            return mat.get(p.y() + topLeft.y(), p.x() + topLeft.x()) != 0;
         });
     }
 
@@ -123,8 +138,9 @@ public class TessellationSetup {
     }
 
     public int numberOfBorderTilesOccupied() {
+        Point topLeft = center.sub(shape.getCenter());
         return (int)shape.findBorderPoints().stream().filter(p -> {
-            return mat.get(p.y() + center.y(), p.x() + center.x()) != 0;
+            return mat.get(p.y() + topLeft.y(), p.x() + topLeft.x()) != 0;
         }).count();
     }
 
@@ -143,10 +159,14 @@ public class TessellationSetup {
     }
 
     public DefShape findIndecisiveShape() {
-        return getBorderShapes().stream().filter(bs -> !bs.certain).findFirst().orElse(null);
+        //a shape with every permutation ruled out cant be decided, it makes the corona invalid instead
+        return getBorderShapes().stream().filter(bs -> !bs.certain && !bs.potentialSymmetries.isEmpty()).findFirst().orElse(null);
     }
 
     public void setup() {
+        long start = System.nanoTime();
+        Events.Setup event = new Events.Setup();
+        event.begin();
         Map<Permutation,Matrix<Integer>> planePermutations = new HashMap<>();
         planePermutations.put(D4.ID, mat);
         List<RelativeRule> relativeRules = getAllRelativeRules();
@@ -165,6 +185,7 @@ public class TessellationSetup {
                 if(DEBUG) System.out.println("abs : " + absoluteRules);
                 List<Integer> failedCodes = new ArrayList<>(); //not sure if this is 100% legit, but i think it holds
                 for (RelativeRule rule : relativeRules) {
+                    event.rulesChecked++;
                     RelativeRule trueRule = rule.adjust(currentCenter);
                     Point testCenter = trueRule.point;
                     if(failedCodes.contains((Integer)rule.declaringCode)) {
@@ -192,8 +213,12 @@ public class TessellationSetup {
                     //failedCodes.add(rule.declaringCode);
                 }   
                 if(DEBUG) System.out.println("shape " + currentShape.code + " in permutation " + shapePerm + " was " + (currentShape.followsRules(shapePerm) ? "valid" : "invalid"));   
+                event.rulesKept += currentShape.validNeigbourRules.get(shapePerm).size();
             }
         }
+        event.defShapes = defShapes.size();
+        event.commit();
+        Metrics.SETUP.record(System.nanoTime() - start, event.rulesChecked);
         for (DefShape shape : getBorderShapes()) {
             if(DEBUG) System.out.println(shape.code + "'s neighbours = " + shape.validNeigbourRules);
         }
@@ -215,12 +240,16 @@ public class TessellationSetup {
         List<RelativeRule> newIncorrectRules = new ArrayList<>();
         for (DefShape shape : getBorderShapes()) {
             for (Permutation perm : List.copyOf(shape.validNeigbourRules.keySet())) {
-                shape.validNeigbourRules.get(perm).removeIf(knownIncorrectRules::contains);
+                List<RelativeRule> rules = shape.validNeigbourRules.get(perm);
+                int before = rules.size();
+                rules.removeIf(knownIncorrectRules::contains);
+                rulesEliminated += before - rules.size();
                 boolean valid = shape.followsRules(perm);
                 RelativeRule rule = shape.getRelativeRule(perm);
                 if(!valid) {
                     newIncorrectRules.add(rule);
                     shape.discountPermutation(perm);
+                    permutationsDiscounted++;
                 }
                 if(DEBUG) System.out.println("shape " + rule + " is " + (valid ? "valid" : "invalid"));
             }
@@ -229,9 +258,18 @@ public class TessellationSetup {
     }
 
     public void removeIncorrectRules(List<RelativeRule> knownIncorrectRules) {
+        long start = System.nanoTime();
+        Events.RemoveIncorrectRules event = new Events.RemoveIncorrectRules();
+        event.begin();
+        int eliminatedBefore = rulesEliminated, discountedBefore = permutationsDiscounted;
         do {
             knownIncorrectRules = removeInvalidSymmetries(knownIncorrectRules);
+            event.rounds++;
         } while (!knownIncorrectRules.isEmpty());
+        event.rulesEliminated = rulesEliminated - eliminatedBefore;
+        event.permutationsDiscounted = permutationsDiscounted - discountedBefore;
+        event.commit();
+        Metrics.REMOVE_INCORRECT_RULES.record(System.nanoTime() - start, event.rulesEliminated);
     }
 
     public void removeIncorrectRules() {
@@ -239,12 +277,20 @@ public class TessellationSetup {
     }
 
     public void collapsePossiblilities() {
+        long start = System.nanoTime();
+        Events.CollapsePossibilities event = new Events.CollapsePossibilities();
+        event.begin();
+        int eliminatedBefore = rulesEliminated;
         DefShape currentShape;
         while ((currentShape = findIndecisiveShape()) != null) {
             RelativeRule rule = currentShape.discountUnfavourablePermutation();
             if(DEBUG) System.out.println("DISCOUNTING " + rule);
             removeIncorrectRules(List.of(rule));
+            event.shapesCollapsed++;
         }
+        event.rulesEliminated = rulesEliminated - eliminatedBefore;
+        event.commit();
+        Metrics.COLLAPSE_POSSIBILITIES.record(System.nanoTime() - start, event.shapesCollapsed);
     }
 
     public void assignFinalRelativeRulesToMain() {
@@ -281,8 +327,13 @@ public class TessellationSetup {
     }
 
     public Tessellation toTessellation() {
+        return toTessellation(Tessellation.DEFAULT_RADIUS);
+    }
+
+    //radius is how many rings the tessellation's graph starts with (see Tessellation)
+    public Tessellation toTessellation(int radius) {
         if(!isValidTessellation()) return null;
-        return new Tessellation(shape, getMainShape().validNeigbourRules.get(D4.ID));
+        return new Tessellation(shape, getMainShape().validNeigbourRules.get(D4.ID), radius);
     }
 
     public static void main(String[] args) {
@@ -303,8 +354,6 @@ public class TessellationSetup {
     }
 
     class DefShape {
-        public static int NUMBER_OF_SHAPES = 0;
-    
         public int code;
         public Point initialRelCenter;
         public Point initialAbsCenter;
@@ -319,7 +368,7 @@ public class TessellationSetup {
         public AbsoluteRule trueAbsRule;
         
         public DefShape(Permutation chosenPerm, Point chosenCenter) {
-            this.code = ++NUMBER_OF_SHAPES;
+            this.code = ++numberOfShapes;
             this.initialAbsCenter = chosenCenter;
             this.initialRelCenter = initialAbsCenter.sub(center);
             this.initialPermutation = chosenPerm;
@@ -328,6 +377,9 @@ public class TessellationSetup {
             if(code == 1) {
                 potentialSymmetries = new ArrayList<>(List.of(D4.ID));
                 setTruePermutation(D4.ID);
+            } else if(potentialSymmetries.size() == 1) {
+                //nothing else looks the same so there is nothing to decide
+                setTruePermutation(potentialSymmetries.get(0));
             }
             potentialSymmetries.forEach(perm -> validNeigbourRules.put(perm, new ArrayList<>()));
         }
@@ -360,7 +412,7 @@ public class TessellationSetup {
         }
     
         public boolean followsRules(Permutation perm) {
-            Boolean[] neighboursPresent = new Boolean[NUMBER_OF_SHAPES];
+            Boolean[] neighboursPresent = new Boolean[numberOfShapes];
             Arrays.fill(neighboursPresent, false);
             neighboursPresent[code-1] = true;
             validNeigbourRules.get(perm).forEach(r -> neighboursPresent[r.declaringCode-1] = true);
@@ -416,28 +468,6 @@ public class TessellationSetup {
     }
 }
 
-abstract class PositionRule {
-    public Permutation permutation;
-    public Point point;
-
-    public PositionRule(Permutation perm, Point point) {
-        this.permutation = perm;
-        this.point = point;
-    }
-
-    @Override
-    public boolean equals(Object obj) {
-        if(!(obj instanceof PositionRule rule)) return false;
-        boolean samePerm = permutation.equals(rule.permutation);
-        boolean samePoint = point.equals(rule.point);
-        return (samePerm && samePoint);
-    }
-
-    @Override
-    public String toString() {
-        return D4.getLabel(permutation) + "@" + point;
-    }
-}
 //you will find a shape with this code and this permutation at this point
 //only valid for one planeTransform
 class AbsoluteRule extends PositionRule {
@@ -453,33 +483,3 @@ class AbsoluteRule extends PositionRule {
         return "{" + codeAtPlace + "@" + super.toString() + "}";
     }
 }
-//this code declares that you will find a shape with this permutation at this point
-class RelativeRule extends PositionRule {
-    public int declaringCode;
-    public boolean incorrect = false;
-
-    public RelativeRule(int declaringCode, Permutation perm, Point point) {
-        super(perm, point);
-        this.declaringCode = declaringCode;
-    }
-
-    public RelativeRule adjust(Point change) {
-        return new RelativeRule(declaringCode, permutation, point.add(change));
-    }
-
-    @Override
-    public String toString() {
-        return "{" + declaringCode + ":" + super.toString() + (incorrect ? "X" : "?") + "}";
-    }
-
-    @Override
-    public boolean equals(Object obj) {
-        if(!(obj instanceof RelativeRule rule)) return false;
-        return super.equals(obj) && rule.declaringCode == declaringCode;
-    }
-
-    public RelativeRule transform(Permutation permutation) {
-        return new RelativeRule(declaringCode, D4.apply(this.permutation, permutation), point.transform(permutation));
-    }
-}
-
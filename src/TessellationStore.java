@@ -0,0 +1,222 @@
+package src;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import src.datastructs.*;
+import src.util.GeometryUtil.*;
+import static src.util.Grouping.D4;
+import src.util.Grouping.Permutation;
+
+//a binary catalogue of computed tessellations, read through a memory mapped file
+//layout (big endian):
+//  header : int magic, short version, int count
+//  index  : count x long offset of each entry, entries are sorted by name
+//  entry  : short nameLength, name (utf8)
+//           short width, short height, bitmap packed row by row 8 cells to a byte
+//           int bv1x, int bv1y, int bv2x, int bv2y
+//           byte orientations, (byte permutation, int vx, int vy) each
+//           byte neighbourLists, (byte permutation, short rules, (short code, byte permutation, int x, int y) each) each
+//opening only maps the file, entries are decoded when they are asked for, and a decoded tessellation only grows
+//its graph once something walks it
+//a buffer can only map 2gb, so a bigger catalogue maps its header and index and then each entry on its own when read
+public class TessellationStore implements Closeable {
+    public static final int MAGIC = 0x54455353;
+    public static final short VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 2 + 4;
+    private FileChannel channel;
+    private long size;
+    //the whole file when it fits in one mapping, otherwise just the header and index
+    private MappedByteBuffer buffer;
+    private boolean whole;
+    private int count;
+
+    private TessellationStore(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        if(size < HEADER_SIZE) throw new IOException("Not a tessellation catalogue");
+        whole = size <= Integer.MAX_VALUE;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, whole ? size : HEADER_SIZE);
+        if(buffer.getInt(0) != MAGIC) throw new IOException("Not a tessellation catalogue");
+        short version = buffer.getShort(4);
+        if(version != VERSION) throw new IOException("Unsupported tessellation catalogue version " + version);
+        count = buffer.getInt(6);
+        if(!whole) {
+            long indexEnd = HEADER_SIZE + (long)count * 8;
+            if(indexEnd > Integer.MAX_VALUE) throw new IOException("Tessellation catalogue index is too large to map");
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, indexEnd);
+        }
+    }
+
+    public static TessellationStore open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new TessellationStore(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private long entryOffset(int index) {
+        if(index < 0 || index >= count) throw new IndexOutOfBoundsException(index);
+        return buffer.getLong(HEADER_SIZE + index * 8);
+    }
+
+    //a buffer positioned at the start of the entry, entries are written in index order so each ends where the next starts
+    private ByteBuffer entry(int index) {
+        long offset = entryOffset(index);
+        if(whole) return buffer.duplicate().position((int)offset);
+        long end = index + 1 < count ? entryOffset(index + 1) : size;
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, end - offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public String name(int index) {
+        ByteBuffer entry = entry(index);
+        byte[] bytes = new byte[entry.getShort()];
+        entry.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    //binary search over the sorted names, -1 if the name isnt in the catalogue
+    public int indexOf(String name) {
+        int low = 0, high = count - 1;
+        while(low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = name(mid).compareTo(name);
+            if(cmp < 0) low = mid + 1;
+            else if(cmp > 0) high = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    public Tessellation get(String name) {
+        int index = indexOf(name);
+        return index == -1 ? null : get(index);
+    }
+
+    public Tessellation get(int index) {
+        ByteBuffer entry = entry(index);
+        entry.position(entry.position() + 2 + entry.getShort());
+        Shape shape = new Shape(readBitmap(entry));
+        Vector basisVector1 = new Vector(entry.getInt(), entry.getInt());
+        Vector basisVector2 = new Vector(entry.getInt(), entry.getInt());
+        Map<Permutation, Vector> offsetVectors = new HashMap<>();
+        int orientations = entry.get();
+        for (int i = 0; i < orientations; i++) {
+            offsetVectors.put(D4.get(entry.get()), new Vector(entry.getInt(), entry.getInt()));
+        }
+        Map<Permutation, List<RelativeRule>> virtualNeighbourMap = new HashMap<>();
+        int neighbourLists = entry.get();
+        for (int i = 0; i < neighbourLists; i++) {
+            Permutation permutation = D4.get(entry.get());
+            List<RelativeRule> ruleList = new ArrayList<>();
+            int rules = entry.getShort();
+            for (int j = 0; j < rules; j++) {
+                ruleList.add(new RelativeRule(entry.getShort(), D4.get(entry.get()), new Point(entry.getInt(), entry.getInt())));
+            }
+            virtualNeighbourMap.put(permutation, ruleList);
+        }
+        return new Tessellation(shape, basisVector1, basisVector2, offsetVectors, virtualNeighbourMap);
+    }
+
+    private static Matrix<Boolean> readBitmap(ByteBuffer entry) {
+        int width = entry.getShort(), height = entry.getShort();
+        byte[] packed = new byte[(width * height + 7) / 8];
+        entry.get(packed);
+        Boolean[][] data = new Boolean[height][width];
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                int bit = i * width + j;
+                data[i][j] = (packed[bit >> 3] & (1 << (bit & 7))) != 0;
+            }
+        }
+        return new Matrix<>(data);
+    }
+
+    //writes the tessellations to a new catalogue file, replacing anything already there
+    public static void write(Path path, Map<String, Tessellation> tessellations) throws IOException {
+        Map<String, Tessellation> sorted = new TreeMap<>(tessellations);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putShort(VERSION).putInt(sorted.size()).flip();
+            channel.write(header, 0);
+            ByteBuffer index = ByteBuffer.allocate(sorted.size() * 8);
+            long position = HEADER_SIZE + index.capacity();
+            for (var entry : sorted.entrySet()) {
+                ByteBuffer encoded = encode(entry.getKey(), entry.getValue());
+                index.putLong(position);
+                while(encoded.hasRemaining()) position += channel.write(encoded, position);
+            }
+            index.flip();
+            channel.write(index, HEADER_SIZE);
+        }
+    }
+
+    private static ByteBuffer encode(String name, Tessellation tessellation) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        Matrix<Boolean> bitmap = tessellation.shape.getBitmap();
+        int rules = tessellation.virtualNeighbourMap.values().stream().mapToInt(List::size).sum();
+        int size = 2 + nameBytes.length
+            + 4 + (bitmap.getWidth() * bitmap.getHeight() + 7) / 8
+            + 16
+            + 1 + tessellation.offsetVectors.size() * 9
+            + 1 + tessellation.virtualNeighbourMap.size() * 3 + rules * 11;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putShort((short)nameBytes.length).put(nameBytes);
+        writeBitmap(buffer, bitmap);
+        buffer.putInt(tessellation.basisVector1.vx()).putInt(tessellation.basisVector1.vy());
+        buffer.putInt(tessellation.basisVector2.vx()).putInt(tessellation.basisVector2.vy());
+        buffer.put((byte)tessellation.offsetVectors.size());
+        tessellation.offsetVectors.forEach((perm, offset) -> {
+            buffer.put((byte)D4.indexOf(perm)).putInt(offset.vx()).putInt(offset.vy());
+        });
+        buffer.put((byte)tessellation.virtualNeighbourMap.size());
+        tessellation.virtualNeighbourMap.forEach((perm, ruleList) -> {
+            buffer.put((byte)D4.indexOf(perm)).putShort((short)ruleList.size());
+            for (RelativeRule rule : ruleList) {
+                buffer.putShort((short)rule.declaringCode).put((byte)D4.indexOf(rule.permutation));
+                buffer.putInt(rule.point.x()).putInt(rule.point.y());
+            }
+        });
+        return buffer.flip();
+    }
+
+    private static void writeBitmap(ByteBuffer buffer, Matrix<Boolean> bitmap) {
+        int width = bitmap.getWidth(), height = bitmap.getHeight();
+        byte[] packed = new byte[(width * height + 7) / 8];
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                int bit = i * width + j;
+                if(bitmap.get(i, j)) packed[bit >> 3] |= 1 << (bit & 7);
+            }
+        }
+        buffer.putShort((short)width).putShort((short)height).put(packed);
+    }
+}
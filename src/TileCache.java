@@ -0,0 +1,135 @@
+package src;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import src.Tessellation.LatticeTile;
+import src.util.GeometryUtil.*;
+
+import java.awt.Color;
+
+//a pyramid of fixed size image tiles of a tessellation, made on demand and kept in a memory bounded lru cache
+//at level 0 a tile pixel is one cell, at level k it stands for a 2^k x 2^k block of cells and takes the colour
+//of the cell in the middle of the block (looked up through the fundamental domain, or a PixelRenderer table for
+//periodic colourings, so zooming far out costs the same)
+//tile (level, tx, ty) covers the level pixels [tx * TILE_SIZE, (tx + 1) * TILE_SIZE) across and the same down
+public class TileCache {
+    public static final int TILE_SIZE = 256;
+    public static final int MAX_LEVEL = 16;
+    private static final int TILE_BYTES = TILE_SIZE * TILE_SIZE * 4;
+    private static final int BACKGROUND = Color.WHITE.getRGB();
+    private Tessellation tessellation;
+    private TileColouring colouring;
+    private BandRenderer renderer;
+    private PixelRenderer sampler;
+    private int maxTiles;
+    private Map<TileKey, int[]> tiles = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TileKey, int[]> eldest) {
+            return size() > maxTiles;
+        }
+    };
+    private Map<TileKey, CompletableFuture<int[]>> inFlight = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor prefetcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(256), r -> {
+            Thread thread = new Thread(r, "tile-prefetcher");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardOldestPolicy());
+
+    public TileCache(Tessellation tessellation, TileColouring colouring, long maxBytes) {
+        this.tessellation = tessellation;
+        this.colouring = colouring;
+        this.renderer = new BandRenderer(tessellation, colouring, TILE_SIZE);
+        if(colouring instanceof PeriodicColouring periodic) this.sampler = new PixelRenderer(tessellation, colouring, periodic.getRepeat());
+        this.maxTiles = (int)Math.max(1, maxBytes / TILE_BYTES);
+    }
+
+    private record TileKey(int level, int tx, int ty) {}
+
+    public synchronized int[] getIfPresent(int level, int tx, int ty) {
+        return tiles.get(new TileKey(level, tx, ty));
+    }
+
+    public synchronized int size() {
+        return tiles.size();
+    }
+
+    //the tile's pixels, row major TILE_SIZE wide, rasterising it first if it isnt cached
+    public int[] getTile(int level, int tx, int ty) {
+        if(level < 0 || level > MAX_LEVEL) throw new IllegalArgumentException("No pyramid level " + level);
+        TileKey key = new TileKey(level, tx, ty);
+        int[] tile = getIfPresent(level, tx, ty);
+        if(tile != null) return tile;
+        CompletableFuture<int[]> created = new CompletableFuture<>();
+        CompletableFuture<int[]> pending = inFlight.putIfAbsent(key, created);
+        if(pending != null) return pending.join();
+        try {
+            tile = rasterise(key);
+            synchronized(this) {
+                tiles.put(key, tile);
+            }
+            created.complete(tile);
+            return tile;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    //queues every tile of the level overlapping the region (in level pixels) to be made in the background
+    public void prefetch(int level, Rect region) {
+        if(level < 0 || level > MAX_LEVEL) return;
+        int firstX = Math.floorDiv(region.x(), TILE_SIZE), lastX = Math.floorDiv(region.x() + region.width() - 1, TILE_SIZE);
+        int firstY = Math.floorDiv(region.y(), TILE_SIZE), lastY = Math.floorDiv(region.y() + region.height() - 1, TILE_SIZE);
+        for (int ty = firstY; ty <= lastY; ty++) {
+            for (int tx = firstX; tx <= lastX; tx++) {
+                if(getIfPresent(level, tx, ty) != null || inFlight.containsKey(new TileKey(level, tx, ty))) continue;
+                int x = tx, y = ty;
+                prefetcher.execute(() -> getTile(level, x, y));
+            }
+        }
+    }
+
+    private int[] rasterise(TileKey key) {
+        int[] pixels = new int[TILE_SIZE * TILE_SIZE];
+        Arrays.fill(pixels, BACKGROUND);
+        if(key.level == 0) {
+            long left = (long)key.tx * TILE_SIZE, top = (long)key.ty * TILE_SIZE;
+            if(!fitsInt(left) || !fitsInt(top) || !fitsInt(left + TILE_SIZE) || !fitsInt(top + TILE_SIZE)) return pixels;
+            renderer.renderRegion(pixels, 0, TILE_SIZE, new Rect((int)left, (int)top, TILE_SIZE, TILE_SIZE));
+            return pixels;
+        }
+        long step = 1L << key.level;
+        if(sampler != null) {
+            sampler.render(pixels, TILE_SIZE, TILE_SIZE, (long)key.tx * TILE_SIZE * step + step / 2, (long)key.ty * TILE_SIZE * step + step / 2, step);
+            return pixels;
+        }
+        //tiles are addressed with int cells, anything further out than that is left as background
+        //(only the periodic sampler, which works in long, can draw it)
+        for (int y = 0; y < TILE_SIZE; y++) {
+            long cellY = ((long)key.ty * TILE_SIZE + y) * step + step / 2;
+            if(!fitsInt(cellY)) continue;
+            for (int x = 0; x < TILE_SIZE; x++) {
+                long cellX = ((long)key.tx * TILE_SIZE + x) * step + step / 2;
+                if(!fitsInt(cellX)) continue;
+                LatticeTile tile = tessellation.tileAt(Math.toIntExact(cellX), Math.toIntExact(cellY));
+                if(tile != null) pixels[y * TILE_SIZE + x] = colouring.colourOf(tile);
+            }
+        }
+        return pixels;
+    }
+
+    private static boolean fitsInt(long value) {
+        return value == (int)value;
+    }
+}
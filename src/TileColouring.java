@@ -0,0 +1,15 @@
+package src;
+
+import src.Tessellation.LatticeTile;
+
+//picks the colour (argb) of a tile, the same tile always has to get the same colour
+//so that renders done in pieces or in parallel agree with each other
+@FunctionalInterface
+public interface TileColouring {
+    int colourOf(LatticeTile tile);
+
+    //the same from the tile's parts, colourings that dont need the record override this so walks can skip making one
+    default int colourOf(int u, int v, int permutation, int x, int y) {
+        return colourOf(new LatticeTile(u, v, permutation, x, y));
+    }
+}
@@ -0,0 +1,145 @@
+package src;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import src.util.GeometryUtil.*;
+import src.util.Grouping.Permutation;
+import src.util.Util.*;
+import src.datastructs.*;
+import src.metrics.Metrics;
+import static src.util.Grouping.D4;
+
+//looks for a way a shape tiles the plane
+//every corona of the shape is tried, a ring of copies that covers each border point without overlapping,
+//and each one is handed to TessellationSetup as its rules until one of them gives a tessellation that covers the plane
+//coronas are built by always covering the first uncovered border point, so none is tried twice
+//a search gives up after maxCoronas coronas or once it has run for the time limit, whichever comes first,
+//a search that gave up or had coronas it couldnt check is inconclusive rather than a no
+public class TilingSearch {
+    private int maxCoronas;
+    private long timeLimitNanos;
+
+    public TilingSearch(int maxCoronas) {
+        this(maxCoronas, null);
+    }
+
+    //a null time limit only stops on the number of coronas
+    public TilingSearch(int maxCoronas, Duration timeLimit) {
+        this.maxCoronas = maxCoronas;
+        this.timeLimitNanos = timeLimit == null ? Long.MAX_VALUE : timeLimit.toNanos();
+    }
+
+    //placements are the rules that were given to TessellationSetup, each a permutation and the neighbour's center
+    //relative to the shape's center, tessellation is null when the shape didnt tile
+    //setupFailures counts the coronas whose derivation threw instead of giving an answer, timedOut is set when the
+    //time limit ran out before the search finished and exhausted when it stopped at maxCoronas
+    public record Result(Shape shape, List<Pair<Permutation,Point>> placements, Tessellation tessellation, int coronasTried,
+        int setupFailures, boolean timedOut, boolean exhausted) {
+        public boolean tiles() {
+            return tessellation != null;
+        }
+
+        //a tiling is always an answer, not tiling only is once every corona was tried and checked
+        public boolean isConclusive() {
+            return tiles() || (!timedOut && !exhausted && setupFailures == 0);
+        }
+
+        //why not tiling isnt an answer, null when it is conclusive
+        public String inconclusiveReason() {
+            if(isConclusive()) return null;
+            if(timedOut) return "timedOut";
+            if(exhausted) return "coronas";
+            return "setupFailures";
+        }
+    }
+
+    public Result search(Shape shape) {
+        if(!shape.isConnected()) throw new IllegalArgumentException("Shape " + shape.encode() + " isnt connected");
+        if(!shape.wellFitted()) throw new IllegalArgumentException("Shape " + shape.encode() + " doesnt fill its bitmap");
+        return new Search(shape).run();
+    }
+
+    private class Search {
+        private Shape shape;
+        private List<Point> borderPoints;
+        private List<Permutation> permutations = new ArrayList<>();
+        private List<List<Point>> orientationCells = new ArrayList<>();
+        private Set<Point> occupied = new HashSet<>();
+        private List<Pair<Permutation,Point>> placements = new ArrayList<>();
+        private Tessellation found;
+        private List<Pair<Permutation,Point>> foundPlacements;
+        private int coronasTried = 0;
+        private int setupFailures = 0;
+        private long deadline = timeLimitNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + timeLimitNanos;
+        private boolean timedOut = false;
+        private boolean exhausted = false;
+
+        private Search(Shape shape) {
+            this.shape = shape;
+            this.borderPoints = shape.findBorderPoints();
+            borderPoints.sort((a, b) -> a.y() != b.y() ? Integer.compare(a.y(), b.y()) : Integer.compare(a.x(), b.x()));
+            occupied.addAll(shape.getBitmap().findAllMatches(true));
+            //permutations that give the same bitmap would only repeat coronas
+            Set<String> seen = new HashSet<>();
+            for (Permutation permutation : D4.getPermutations()) {
+                Matrix<Boolean> bitmap = shape.getBitmap().transform(permutation);
+                if(!seen.add(new Shape(bitmap).encode())) continue;
+                permutations.add(permutation);
+                orientationCells.add(bitmap.findAllMatches(true));
+            }
+        }
+
+        private Result run() {
+            extend();
+            return new Result(shape, found == null ? List.of() : foundPlacements, found, coronasTried, setupFailures, timedOut, exhausted);
+        }
+
+        private boolean extend() {
+            if(deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+                timedOut = true;
+                return true;
+            }
+            Point target = borderPoints.stream().filter(p -> !occupied.contains(p)).findFirst().orElse(null);
+            if(target == null) return tryCorona();
+            for (int o = 0; o < permutations.size(); o++) {
+                for (Point cell : orientationCells.get(o)) {
+                    Point topLeft = target.sub(cell);
+                    List<Point> cells = orientationCells.get(o).stream().map(c -> c.add(topLeft)).toList();
+                    if(cells.stream().anyMatch(occupied::contains)) continue;
+                    Permutation permutation = permutations.get(o);
+                    occupied.addAll(cells);
+                    placements.add(new Pair<>(permutation, topLeft.add(shape.getCenterTransformed(permutation)).sub(shape.getCenter())));
+                    boolean done = extend();
+                    placements.remove(placements.size() - 1);
+                    occupied.removeAll(cells);
+                    if(done) return true;
+                }
+            }
+            return false;
+        }
+
+        //true once the search should stop, either from finding a tessellation or running out of tries
+        private boolean tryCorona() {
+            coronasTried++;
+            try {
+                Tessellation tessellation = new TessellationSetup(shape, placements).toTessellation();
+                //the setup only checks the corona, a gap further out shows up as residues the lattice leaves uncovered
+                if(tessellation != null && tessellation.getFundamentalDomain().isComplete()) {
+                    found = tessellation;
+                    foundPlacements = List.copyOf(placements);
+                    return true;
+                }
+            } catch (RuntimeException e) {
+                //some rule sets break the tessellation derivation, the corona doesnt count but how often and how is kept
+                setupFailures++;
+                Metrics.stage("setupFailure." + e.getClass().getSimpleName()).record(0, 1);
+            }
+            exhausted = coronasTried >= maxCoronas;
+            return exhausted;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package src;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//serves a TilingService on a localhost port or a unix domain socket
+//each line sent is a shape (see Shape.encode) or "metrics" and gets one line of json back, a connection can ask any number of times
+//every connection gets its own thread, a virtual one when the runtime has them
+public class TilingServer implements Closeable {
+    private TilingService service;
+    private SocketAddress address;
+    private ServerSocketChannel server;
+    private ExecutorService connections = connectionExecutor();
+
+    public TilingServer(TilingService service, SocketAddress address) {
+        this.service = service;
+        this.address = address;
+    }
+
+    public static SocketAddress localPort(int port) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+
+    public static SocketAddress unixSocket(Path path) {
+        return UnixDomainSocketAddress.of(path);
+    }
+
+    //binds and then accepts connections until closed
+    public void serve() throws IOException {
+        if(address instanceof UnixDomainSocketAddress unix) {
+            Files.deleteIfExists(unix.getPath());
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            server = ServerSocketChannel.open();
+        }
+        server.bind(address);
+        try {
+            while(true) {
+                SocketChannel channel = server.accept();
+                connections.execute(() -> handle(channel));
+            }
+        } catch (ClosedChannelException e) {
+            //closed from close()
+        }
+    }
+
+    public SocketAddress getBoundAddress() throws IOException {
+        return server == null ? null : server.getLocalAddress();
+    }
+
+    private void handle(SocketChannel channel) {
+        try (channel;
+            BufferedReader in = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+            Writer out = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+            String line;
+            while((line = in.readLine()) != null) {
+                if(line.isBlank()) continue;
+                out.write(service.query(line.trim()));
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            //the client went away
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(server != null) server.close();
+        connections.shutdownNow();
+        if(address instanceof UnixDomainSocketAddress unix) Files.deleteIfExists(unix.getPath());
+    }
+
+    //virtual threads came in after the release this is built for, so they are looked up when running on a newer jdk
+    private static ExecutorService connectionExecutor() {
+        try {
+            return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "tiling-connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package src;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import src.metrics.Metrics;
+import src.util.GeometryUtil.*;
+import src.util.Grouping.Permutation;
+import src.util.Util.*;
+import static src.util.Grouping.D4;
+
+//answers "does this shape tile, and with which rules" as one line of json, remembering the answers
+//shapes are looked up by their canonical orientation so all 8 orientations of a shape share one search,
+//the rules in an answer are for the canonical shape which is given with them
+//the cache holds at most maxEntries answers and forgets the least recently asked first,
+//queries for a shape that is already being searched wait for that search instead of starting another
+//shapes with a side longer than maxSide are turned away, and only conclusive answers are remembered,
+//an inconclusive one has "tiles":null and says why in "inconclusive"
+//asking for "metrics" instead of a shape gives the process's stage counters and latencies (see Metrics)
+public class TilingService {
+    private TilingSearch search;
+    private int maxEntries;
+    private int maxSide;
+    private Map<String, String> answers = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    private Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    public TilingService(TilingSearch search, int maxEntries, int maxSide) {
+        this.search = search;
+        this.maxEntries = maxEntries;
+        this.maxSide = maxSide;
+    }
+
+    //shape is encoded like Shape.encode, e.g. #./##
+    public String query(String code) {
+        if(code.equals("metrics")) return metricsJson();
+        long start = System.nanoTime();
+        String answer;
+        boolean cached;
+        try {
+            Shape shape = Shape.decode(code);
+            int side = Math.max(shape.getBitmap().getWidth(), shape.getBitmap().getHeight());
+            if(side > maxSide) throw new IllegalArgumentException("Shapes are limited to " + maxSide + " cells a side, this one has " + side);
+            String key = shape.canonical().encode();
+            answer = getIfPresent(key);
+            cached = answer != null;
+            if(!cached) answer = answer(key);
+        } catch (RuntimeException e) {
+            return "{\"error\":" + quote(String.valueOf(e.getMessage())) + "}";
+        }
+        long nanos = System.nanoTime() - start;
+        Metrics.stage("tilingQuery").record(nanos, 1);
+        return answer.substring(0, answer.length() - 1) + ",\"cached\":" + cached + ",\"micros\":" + nanos / 1000 + "}";
+    }
+
+    public synchronized int size() {
+        return answers.size();
+    }
+
+    private synchronized String getIfPresent(String key) {
+        return answers.get(key);
+    }
+
+    private String answer(String key) {
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> pending = inFlight.putIfAbsent(key, created);
+        if(pending != null) return pending.join();
+        try {
+            TilingSearch.Result result = search.search(Shape.decode(key));
+            String answer = toJson(result);
+            if(result.isConclusive()) {
+                synchronized(this) {
+                    answers.put(key, answer);
+                }
+            }
+            created.complete(answer);
+            return answer;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    static String toJson(TilingSearch.Result result) {
+        StringBuilder json = new StringBuilder("{\"shape\":").append(quote(result.shape().encode()));
+        json.append(",\"tiles\":").append(result.isConclusive() ? String.valueOf(result.tiles()) : "null");
+        json.append(",\"rules\":[").append(result.placements().stream().map(TilingService::ruleJson).collect(Collectors.joining(","))).append(']');
+        if(result.tiles()) {
+            LatticeBasis lattice = result.tessellation().getLattice();
+            json.append(",\"basis\":[[").append(lattice.getA().vx()).append(',').append(lattice.getA().vy()).append("],[")
+                .append(lattice.getB().vx()).append(',').append(lattice.getB().vy()).append("]]");
+        }
+        json.append(",\"coronas\":").append(result.coronasTried());
+        json.append(",\"setupFailures\":").append(result.setupFailures());
+        if(!result.isConclusive()) json.append(",\"inconclusive\":").append(quote(result.inconclusiveReason()));
+        return json.append('}').toString();
+    }
+
+    //every stage that has run, latencies in microseconds
+    static String metricsJson() {
+        StringBuilder json = new StringBuilder("{\"metrics\":[");
+        boolean first = true;
+        for (Metrics.Stage stage : Metrics.stages().values()) {
+            if(stage.count() == 0) continue;
+            if(!first) json.append(',');
+            first = false;
+            json.append("{\"stage\":").append(quote(stage.getName())).append(",\"runs\":").append(stage.count())
+                .append(",\"items\":").append(stage.items()).append(",\"totalMicros\":").append(stage.totalNanos() / 1000)
+                .append(",\"p50Micros\":").append(stage.percentile(0.5) / 1000).append(",\"p99Micros\":").append(stage.percentile(0.99) / 1000).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String ruleJson(Pair<Permutation,Point> rule) {
+        return "{\"permutation\":" + quote(D4.getLabel(rule.a)) + ",\"x\":" + rule.b.x() + ",\"y\":" + rule.b.y() + "}";
+    }
+
+    static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            switch(c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                default -> {
+                    if(c < 0x20) quoted.append(String.format("\\u%04x", (int)c));
+                    else quoted.append(c);
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
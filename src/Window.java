@@ -2,32 +2,114 @@ package src;
 import javax.swing.*;
 
 import java.awt.event.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import src.util.GeometryUtil.Rect;
+
 import java.awt.*;
 
-public class Window extends JFrame implements MouseListener, MouseMotionListener, MouseWheelListener {  
+//drag to pan, scroll to zoom
+//frames are put together on a background thread from the tiles of a TileCache and handed to the panel when done,
+//so only tiles that were never in view (or got evicted) are rasterised, zoomed in or far out
+//zoom >= 0 draws every cell as a 2^zoom pixel square, zoom < 0 draws pyramid level -zoom one pixel per tile pixel
+public class Window extends JFrame implements MouseListener, MouseMotionListener, MouseWheelListener {
     DrawPanel panel;
-    Plane plane;
-    final int PLANE_SIZE = 100;
+    Tessellation tessellation;
+    TileCache tiles;
     final int WINDOW_SIZE = 750;
+    final int MAX_ZOOM = 6;
+    final int MIN_ZOOM = -TileCache.MAX_LEVEL;
+    final long TILE_CACHE_BYTES = 256L << 20;
+
+    //the view, only touched on the EDT
+    //viewX/viewY is the screen pixel position of the top left of the view, measured from the tessellation origin
+    private int zoom = 3;
+    private int viewX = -WINDOW_SIZE / 2, viewY = -WINDOW_SIZE / 2;
+    private java.awt.Point dragStart;
+
+    private final ExecutorService renderThread = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "tessellation-renderer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicReference<View> requestedView = new AtomicReference<>();
 
     public Window() {
         super("Tessellation Shape Automaton");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        addMouseListener(this);
-        addMouseMotionListener(this);
-        addMouseWheelListener(this);
 
         panel = new DrawPanel();
-        
+        panel.addMouseListener(this);
+        panel.addMouseMotionListener(this);
+        panel.addMouseWheelListener(this);
+        panel.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                requestRender();
+            }
+        });
+
         setSize(WINDOW_SIZE, WINDOW_SIZE);
         getContentPane().add(panel);
+
+        tessellation = TessellationCatalogue.BUILT_IN.get("SMALL_L_2");
+        tiles = new TileCache(tessellation, tessellation.getColouring(), TILE_CACHE_BYTES);
         setVisible(true);
+        requestRender();
+    }
+
+    //screen pixels per level pixel
+    private int scale() {
+        return 1 << Math.max(zoom, 0);
+    }
+
+    private int level() {
+        return Math.max(-zoom, 0);
+    }
+
+    //the level pixels that need to be in a frame for the current view
+    private View currentView() {
+        int columns = Math.max(1, panel.getWidth()) / scale() + 2;
+        int rows = Math.max(1, panel.getHeight()) / scale() + 2;
+        return new View(level(), Math.floorDiv(viewX, scale()), Math.floorDiv(viewY, scale()), columns, rows);
+    }
+
+    //only the newest view is kept, so renders that fall behind the mouse are skipped
+    private void requestRender() {
+        if(requestedView.getAndSet(currentView()) == null) renderThread.execute(this::renderRequested);
+    }
 
-        plane = new Plane(PLANE_SIZE, PLANE_SIZE);
+    private void renderRequested() {
+        View view = requestedView.getAndSet(null);
+        if(view == null) return;
+        Frame frame = renderFrame(view);
+        SwingUtilities.invokeLater(() -> panel.setFrame(frame));
+        //the same area one level in and one level out, ready for the next scroll
+        Rect area = view.toRect();
+        tiles.prefetch(view.level + 1, new Rect(Math.floorDiv(area.x(), 2), Math.floorDiv(area.y(), 2), area.width() / 2 + 1, area.height() / 2 + 1));
+        tiles.prefetch(view.level - 1, new Rect(area.x() * 2, area.y() * 2, area.width() * 2, area.height() * 2));
+    }
 
-        Tessellation tes = Tessellation.DOMINO_5; 
-        tes.drawToPlane(plane);
-        repaint();
+    private Frame renderFrame(View view) {
+        Plane plane = new Plane(view.columns, view.rows);
+        int[] pixels = plane.getPixels();
+        int size = TileCache.TILE_SIZE;
+        int firstX = Math.floorDiv(view.x, size), lastX = Math.floorDiv(view.x + view.columns - 1, size);
+        int firstY = Math.floorDiv(view.y, size), lastY = Math.floorDiv(view.y + view.rows - 1, size);
+        for (int ty = firstY; ty <= lastY; ty++) {
+            for (int tx = firstX; tx <= lastX; tx++) {
+                int[] tile = tiles.getTile(view.level, tx, ty);
+                int left = Math.max(view.x, tx * size), right = Math.min(view.x + view.columns, (tx + 1) * size);
+                int top = Math.max(view.y, ty * size), bottom = Math.min(view.y + view.rows, (ty + 1) * size);
+                for (int y = top; y < bottom; y++) {
+                    System.arraycopy(tile, (y - ty * size) * size + left - tx * size, pixels, (y - view.y) * view.columns + left - view.x, right - left);
+                }
+            }
+        }
+        plane.occupyRows(0, view.rows);
+        return new Frame(view, plane);
     }
 
     @Override
@@ -43,26 +125,65 @@ public class Window extends JFrame implements MouseListener, MouseMotionListener
     public void mouseMoved(MouseEvent e) {}
 
     @Override
-    public void mouseDragged(MouseEvent e) { 
+    public void mouseDragged(MouseEvent e) {
+        if(dragStart == null) return;
+        viewX -= e.getX() - dragStart.x;
+        viewY -= e.getY() - dragStart.y;
+        dragStart = e.getPoint();
+        panel.repaint();
+        requestRender();
     }
 
     @Override
     public void mousePressed(MouseEvent e) {
+        dragStart = e.getPoint();
     }
 
     @Override
-    public void mouseReleased(MouseEvent e) {}
+    public void mouseReleased(MouseEvent e) {
+        dragStart = null;
+    }
 
+    //zooms in or out by a factor of two, keeping the cell under the mouse where it is
     @Override
-    public void mouseWheelMoved(MouseWheelEvent e) { 
+    public void mouseWheelMoved(MouseWheelEvent e) {
+        int newZoom = e.getWheelRotation() < 0 ? Math.min(MAX_ZOOM, zoom + 1) : Math.max(MIN_ZOOM, zoom - 1);
+        if(newZoom == zoom) return;
+        double factor = Math.pow(2, newZoom - zoom);
+        viewX = (int)Math.floor((viewX + e.getX()) * factor) - e.getX();
+        viewY = (int)Math.floor((viewY + e.getY()) * factor) - e.getY();
+        zoom = newZoom;
+        panel.repaint();
+        requestRender();
+    }
+
+    private record View(int level, int x, int y, int columns, int rows) {
+        private Rect toRect() {
+            return new Rect(x, y, columns, rows);
+        }
     }
 
+    private record Frame(View view, Plane plane) {}
+
     class DrawPanel extends JPanel {
+        private Frame frame;
+
+        private void setFrame(Frame frame) {
+            this.frame = frame;
+            repaint();
+        }
+
+        //the frame is drawn where its cells are in the current view, so panning and zooming move it before the next frame is ready
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
-            g.drawImage(plane.getImage(), 0, 0, getWidth(), getHeight(), null);
+            if(frame == null) return;
+            double screenPerPixel = Math.pow(2, zoom + frame.view.level);
+            int x = (int)Math.floor(frame.view.x * screenPerPixel) - viewX;
+            int y = (int)Math.floor(frame.view.y * screenPerPixel) - viewY;
+            int width = (int)Math.ceil(frame.view.columns * screenPerPixel);
+            int height = (int)Math.ceil(frame.view.rows * screenPerPixel);
+            g.drawImage(frame.plane.getImage(), x, y, width, height, null);
         }
     }
-}  
-
+}
@@ -1,169 +1,336 @@
 package src.datastructs;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
-import java.util.Queue;
-import java.util.function.Function;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 
-public class HashGraph<K1,K2,V> {
-    private Function<KeyPair,List<KeyPair>> neighbourFunction;
-    private Map<K1, Cluster> map = new HashMap<>();
+//a graph of tiles keyed by a lattice point and a permutation index
+//keys are packed into a long (30 bits x, 30 bits y, 4 bits permutation), nodes are numbers and their keys and values
+//live in parallel primitive arrays, the hash table is open addressed with linear probing and only holds node numbers
+//a node's neighbours are worked out from neighbour rules indexed by its permutation, so finding them allocates nothing,
+//once they all exist their numbers are kept in adjacency (degree slots per node) so walking it again doesnt hash at all
+//removed nodes give their number to later ones so the arrays stay the size of the most nodes there have been at once
+//not thread safe, a graph is grown, walked and trimmed by one thread at a time
+public class HashGraph {
+    private static final int COORD_BITS = 30;
+    private static final long COORD_MASK = (1L << COORD_BITS) - 1;
+    private static final int PERMUTATION_BITS = 4;
+    private static final int MIN_COORD = -(1 << (COORD_BITS - 1)), MAX_COORD = (1 << (COORD_BITS - 1)) - 1;
+    //no permutation index is 15, so this is never a real key
+    private static final long REMOVED = -1L;
+    private static final float MAX_LOAD = 0.5f;
 
-    public HashGraph() { }
+    //neighbour rules, indexed by permutation then by rule, a permutation with no rules has an empty row
+    private int[][] neighbourX, neighbourY, neighbourPermutation;
+    private int degree;
+    //a removal can leave any cached number pointing at a gone or reused node, so each one moves removals on
+    //and a row is only used while adjacencyStamp matches it, adding nodes never touches a complete row
+    private int[] adjacency;
+    private int[] adjacencyStamp;
+    private int removals = 1;
 
-    public void setNeighbourFunction(Function<KeyPair,List<KeyPair>> neighbourFunction) {
-        this.neighbourFunction = neighbourFunction;
+    private int[] slots;
+    private long[] keys;
+    private int[] values;
+    private int size = 0;
+    //node numbers handed out so far, numbers below it are either in the graph or in freeNodes
+    private int used = 0;
+    private NodeQueue freeNodes = new NodeQueue();
+
+    public HashGraph(int[][] neighbourX, int[][] neighbourY, int[][] neighbourPermutation) {
+        this.neighbourX = neighbourX;
+        this.neighbourY = neighbourY;
+        this.neighbourPermutation = neighbourPermutation;
+        degree = Arrays.stream(neighbourX).mapToInt(rules -> rules.length).max().orElse(0);
+        slots = new int[64];
+        Arrays.fill(slots, -1);
+        keys = new long[32];
+        values = new int[keys.length];
+        adjacency = new int[keys.length * degree];
+        adjacencyStamp = new int[keys.length];
     }
 
-    public HashGraph<K1,K2,V>.Cluster.Node put(K1 key1, K2 key2, V value) {
-        Cluster cluster = map.computeIfAbsent(key1, Cluster::new);
-        HashGraph<K1,K2,V>.Cluster.Node node = cluster.new Node(key2, value);
-        cluster.addNode(key2, node);
-        return node;
+    public static long pack(int x, int y, int permutation) {
+        if(x < MIN_COORD || x > MAX_COORD || y < MIN_COORD || y > MAX_COORD) {
+            throw new IllegalArgumentException("Lattice point (" + x + "," + y + ") is too far out for the graph");
+        }
+        return ((x & COORD_MASK) << (COORD_BITS + PERMUTATION_BITS)) | ((y & COORD_MASK) << PERMUTATION_BITS) | permutation;
     }
 
-    public HashGraph<K1,K2,V>.Cluster.Node put(KeyPair kp, V value) {
-        return put(kp.key1, kp.key2, value);
+    public static int unpackX(long key) {
+        return (int)(key >> (COORD_BITS + PERMUTATION_BITS));
     }
 
-    public HashGraph<K1,K2,V>.Cluster.Node get(K1 key1, K2 key2) {
-        Cluster cluster = map.get(key1);
-        if(cluster == null) return null;
-        return cluster.nodes.get(key2);
+    public static int unpackY(long key) {
+        return (int)(key << (64 - COORD_BITS - PERMUTATION_BITS) >> (64 - COORD_BITS));
     }
-    public HashGraph<K1,K2,V>.Cluster.Node get(KeyPair kp) {
-        return get(kp.key1, kp.key2);
+
+    public static int unpackPermutation(long key) {
+        return (int)(key & ((1 << PERMUTATION_BITS) - 1));
     }
 
-    public boolean isPresent(KeyPair kp) {return get(kp) != null; }
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int)key;
+    }
 
-    @Override
-    public String toString() {
-        return "(" + map + ")";
+    //node number of the key, or -1 if it isnt in the graph
+    public int find(int x, int y, int permutation) {
+        if(x < MIN_COORD || x > MAX_COORD || y < MIN_COORD || y > MAX_COORD) return -1;
+        return find(pack(x, y, permutation));
     }
 
-    public void unvisitAll() {
-        map.values().forEach(c -> {
-            c.nodes.values().forEach(n -> {
-                n.visited = false;
-            });
-        });
+    public int find(long key) {
+        int mask = slots.length - 1;
+        for (int slot = hash(key) & mask; slots[slot] != -1; slot = (slot + 1) & mask) {
+            if(keys[slots[slot]] == key) return slots[slot];
+        }
+        return -1;
     }
 
-    public int sizeFrom(HashGraph<K1,K2,V>.Cluster.Node start) {
-        return traverse(start).size();
+    //adds the node only if the key is free, returning its number, or -1 if it was already there
+    public int putIfAbsent(int x, int y, int permutation, int value) {
+        long key = pack(x, y, permutation);
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        for (; slots[slot] != -1; slot = (slot + 1) & mask) {
+            if(keys[slots[slot]] == key) return -1;
+        }
+        int node = takeNode();
+        keys[node] = key;
+        values[node] = value;
+        slots[slot] = node;
+        if(++size > slots.length * MAX_LOAD) rehash();
+        return node;
     }
 
-    public List<HashGraph<K1,K2,V>.Cluster.Node> traverse(HashGraph<K1,K2,V>.Cluster.Node start) {
-        List<HashGraph<K1,K2,V>.Cluster.Node> nodesFound = new ArrayList<>();
-        Queue<HashGraph<K1,K2,V>.Cluster.Node> queue = new LinkedList<>();
-        queue.add(start);
-        start.visited = true;
-        while(!queue.isEmpty()) {
-            var node = queue.remove();
-            nodesFound.add(node);
-            queue.addAll(node.getUnvisitedNeighbours());
+    //putting a key that is already present only replaces its value
+    public int put(int x, int y, int permutation, int value) {
+        int node = putIfAbsent(x, y, permutation, value);
+        if(node != -1) return node;
+        node = find(x, y, permutation);
+        values[node] = value;
+        return node;
+    }
+
+    private int takeNode() {
+        if(!freeNodes.isEmpty()) return freeNodes.poll();
+        if(used == keys.length) {
+            keys = Arrays.copyOf(keys, used * 2);
+            values = Arrays.copyOf(values, used * 2);
+            adjacency = Arrays.copyOf(adjacency, used * 2 * degree);
+            adjacencyStamp = Arrays.copyOf(adjacencyStamp, used * 2);
         }
-        unvisitAll();
-        return nodesFound;
+        adjacencyStamp[used] = 0;
+        return used++;
     }
 
-    public class Cluster {
-        private K1 key;
-        private Map<K2, Node> nodes = new HashMap<>();
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        Arrays.fill(slots, -1);
+        int mask = slots.length - 1;
+        for (int node = 0; node < used; node++) {
+            if(keys[node] == REMOVED) continue;
+            int slot = hash(keys[node]) & mask;
+            while(slots[slot] != -1) slot = (slot + 1) & mask;
+            slots[slot] = node;
+        }
+    }
 
-        private Cluster(K1 key) {
-            this.key = key;
+    //takes the node out, later entries of its probe run are shifted back so lookups never need tombstones
+    public boolean remove(int node) {
+        if(!contains(node)) return false;
+        int mask = slots.length - 1;
+        int slot = hash(keys[node]) & mask;
+        while(slots[slot] != node) slot = (slot + 1) & mask;
+        for (int next = (slot + 1) & mask; slots[next] != -1; next = (next + 1) & mask) {
+            int home = hash(keys[slots[next]]) & mask;
+            //the entry at next can fill the hole if its home slot isnt cyclically between the hole and next
+            if(((next - home) & mask) >= ((next - slot) & mask)) {
+                slots[slot] = slots[next];
+                slot = next;
+            }
         }
+        slots[slot] = -1;
+        keys[node] = REMOVED;
+        freeNodes.add(node);
+        size--;
+        removals++;
+        return true;
+    }
 
-        public K1 getKey() {
-            return key;
+    //removes every node matching the predicate, returning how many went
+    public int removeIf(IntPredicate predicate) {
+        int count = 0;
+        for (int node = 0; node < used; node++) {
+            if(contains(node) && predicate.test(node) && remove(node)) count++;
         }
+        return count;
+    }
+
+    public boolean contains(int node) {
+        return node >= 0 && node < used && keys[node] != REMOVED;
+    }
+
+    public int size() { return size; }
+    //one more than the highest node number in use, for arrays indexed by node
+    public int capacity() { return used; }
+    public long key(int node) { return keys[node]; }
+    public int x(int node) { return unpackX(keys[node]); }
+    public int y(int node) { return unpackY(keys[node]); }
+    public int permutation(int node) { return unpackPermutation(keys[node]); }
+    public int getValue(int node) { return values[node]; }
+    public void setValue(int node, int value) { values[node] = value; }
+
+    public int neighbourCount(int node) {
+        return neighbourX[permutation(node)].length;
+    }
 
-        public Map<K2, Node> getNodes() {
-            return nodes;
+    //node number of the i'th neighbour, or -1 if it isnt present
+    public int neighbour(int node, int i) {
+        if(adjacencyStamp[node] == removals) return adjacency[node * degree + i];
+        int permutation = permutation(node);
+        return find(x(node) + neighbourX[permutation][i], y(node) + neighbourY[permutation][i], neighbourPermutation[permutation][i]);
+    }
+
+    //puts the node numbers of every neighbour into found (-1 for those that arent present) and returns how many there are
+    //the first time they are all present they are cached, after that until a removal it is a copy
+    public int neighbours(int node, int[] found) {
+        int count = neighbourCount(node);
+        if(adjacencyStamp[node] == removals) {
+            System.arraycopy(adjacency, node * degree, found, 0, count);
+            return count;
+        }
+        boolean complete = true;
+        for (int i = 0; i < count; i++) {
+            found[i] = neighbour(node, i);
+            complete = complete && found[i] != -1;
+        }
+        if(complete) {
+            System.arraycopy(found, 0, adjacency, node * degree, count);
+            adjacencyStamp[node] = removals;
         }
+        return count;
+    }
+
+    //the most neighbours any node has, big enough for the array given to neighbours
+    public int degree() {
+        return degree;
+    }
+
+    //the i'th neighbour's key, whether or not it is present
+    public long neighbourKey(int node, int i) {
+        int permutation = permutation(node);
+        return pack(x(node) + neighbourX[permutation][i], y(node) + neighbourY[permutation][i], neighbourPermutation[permutation][i]);
+    }
 
-        private void addNode(K2 key, Node n) {
-            nodes.put(key, n);
+    //creates all non present neighbours of a node with the value, handing each new node to created, returns how many
+    public int createNeighbours(int node, int value, IntConsumer created) {
+        int x = x(node), y = y(node), permutation = permutation(node);
+        int count = 0;
+        for (int i = 0; i < neighbourX[permutation].length; i++) {
+            int neighbour = putIfAbsent(x + neighbourX[permutation][i], y + neighbourY[permutation][i], neighbourPermutation[permutation][i], value);
+            if(neighbour == -1) continue;
+            created.accept(neighbour);
+            count++;
         }
+        return count;
+    }
 
-        @Override
-        public String toString() {
-            return "(" + nodes + ")";
+    //every node in the graph, in no particular order
+    public void forEachNode(IntConsumer visitor) {
+        for (int node = 0; node < used; node++) {
+            if(keys[node] != REMOVED) visitor.accept(node);
         }
+    }
 
-        public class Node {
-            private K2 key;
-            private V value;
-            private boolean visited = false;
-    
-            private Node(K2 key, V value) {
-                this.key = key;
-                this.value = value;
+    //breadth first from start, returns how many nodes were visited
+    //the visited set is local to the call and indexed by node number, which never goes past capacity
+    public int traverse(int start, IntConsumer visitor) {
+        if(!contains(start)) return 0;
+        boolean[] visited = new boolean[used];
+        NodeQueue queue = new NodeQueue();
+        int[] found = new int[degree];
+        queue.add(start);
+        visited[start] = true;
+        int count = 0;
+        while(!queue.isEmpty()) {
+            int node = queue.poll();
+            visitor.accept(node);
+            count++;
+            int neighbourCount = neighbours(node, found);
+            for (int i = 0; i < neighbourCount; i++) {
+                int neighbour = found[i];
+                if(neighbour == -1 || visited[neighbour]) continue;
+                visited[neighbour] = true;
+                queue.add(neighbour);
             }
+        }
+        return count;
+    }
 
-            public List<KeyPair> neighbourKeyPairs() {
-                return neighbourFunction.apply(getKeyPair());
-            }
-            //gets the nodes neighbours, or null if they arent present
-            public List<Node> getNeighbours() {
-                return neighbourKeyPairs()
-                .stream().map(HashGraph.this::get).toList();
-            }
-            //get neighbours that are present
-            public List<Node> getPresentNeighbours() {
-                return getNeighbours().stream().filter(n -> n != null).toList();
-            }
-            //get neighbours that are present and not visited, and set them to visited
-            private List<Node> getUnvisitedNeighbours() {
-                return getNeighbours().stream().filter(n -> {
-                    if(n == null || n.visited) return false;
-                    return (n.visited = true);
-                }).toList();
-            }
-            //creates all non present neighbours of a node with starting value v
-            public void createNeighbours(V value) {
-                neighbourKeyPairs().stream().filter(kp -> !isPresent(kp)).forEach(kp -> put(kp, value));
-            }
-    
-            public V getValue() {
-                return value;
-            }
-    
-            public K2 getKey() {
-                return this.key;
-            }
-            public KeyPair getKeyPair() {
-                return new KeyPair(Cluster.this.key, this.key);
-            }
-    
-            public Cluster getCluster() {
-                return Cluster.this;
-            }
+    public int sizeFrom(int start) {
+        return traverse(start, node -> { });
+    }
 
-            @Override
-            public String toString() {
-                return "{" + value + "}";
+    @Override
+    public String toString() {
+        return "(" + size + " nodes)";
+    }
+
+    //a first in first out queue of node numbers, backed by a growing int array
+    public static class NodeQueue {
+        private int[] nodes = new int[16];
+        private int head = 0;
+        private int tail = 0;
+
+        public void add(int node) {
+            if(tail == nodes.length) {
+                if(head > nodes.length / 2) {
+                    System.arraycopy(nodes, head, nodes, 0, tail - head);
+                } else {
+                    nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                    System.arraycopy(nodes, head, nodes, 0, tail - head);
+                }
+                tail -= head;
+                head = 0;
             }
+            nodes[tail++] = node;
+        }
+
+        public void addAll(NodeQueue other) {
+            for (int i = other.head; i < other.tail; i++) add(other.nodes[i]);
         }
-    }
 
-    public class KeyPair {
-        public K1 key1;
-        public K2 key2;
+        public int poll() {
+            if(head == tail) throw new IllegalStateException("Queue is empty");
+            return nodes[head++];
+        }
+
+        public int get(int i) {
+            return nodes[head + i];
+        }
+
+        public boolean isEmpty() {
+            return head == tail;
+        }
+
+        public int size() {
+            return tail - head;
+        }
 
-        public KeyPair(K1 key1, K2 key2) {
-            this.key1 = key1;
-            this.key2 = key2;
+        public void clear() {
+            head = tail = 0;
         }
 
-        @Override
-        public String toString() {
-            return "<" + key1 + "|" + key2 + ">";
+        public void removeIf(IntPredicate predicate) {
+            int kept = head;
+            for (int i = head; i < tail; i++) {
+                if(!predicate.test(nodes[i])) nodes[kept++] = nodes[i];
+            }
+            tail = kept;
         }
     }
-}
\ No newline at end of file
+}
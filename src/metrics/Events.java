@@ -0,0 +1,73 @@
+package src.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+//flight recorder events for the stages of finding and drawing a tessellation
+//they cost next to nothing unless a recording has them enabled, e.g. java -XX:StartFlightRecording ...
+public class Events {
+    private static final String CATEGORY = "Tessellation";
+
+    @Name("src.Setup")
+    @Label("Tessellation Setup")
+    @Description("Checking every relative rule against the setup grid")
+    @Category(CATEGORY)
+    public static class Setup extends Event {
+        @Label("DefShapes")
+        public int defShapes;
+        @Label("Rules Checked")
+        public int rulesChecked;
+        @Label("Rules Kept")
+        public int rulesKept;
+    }
+
+    @Name("src.RemoveIncorrectRules")
+    @Label("Remove Incorrect Rules")
+    @Description("Propagating incorrect rules until nothing else becomes incorrect")
+    @Category(CATEGORY)
+    public static class RemoveIncorrectRules extends Event {
+        @Label("Rounds")
+        public int rounds;
+        @Label("Rules Eliminated")
+        public int rulesEliminated;
+        @Label("Permutations Discounted")
+        public int permutationsDiscounted;
+    }
+
+    @Name("src.CollapsePossibilities")
+    @Label("Collapse Possibilities")
+    @Description("Picking a permutation for every shape that still has several")
+    @Category(CATEGORY)
+    public static class CollapsePossibilities extends Event {
+        @Label("Shapes Collapsed")
+        public int shapesCollapsed;
+        @Label("Rules Eliminated")
+        public int rulesEliminated;
+    }
+
+    @Name("src.TessellationConstruction")
+    @Label("Tessellation Construction")
+    @Description("Deriving the lattice, orientations and neighbour map and growing the hash graph")
+    @Category(CATEGORY)
+    public static class TessellationConstruction extends Event {
+        @Label("Orientations")
+        public int orientations;
+        @Label("Lattice Area")
+        public int latticeArea;
+        @Label("Nodes Created")
+        public int nodesCreated;
+    }
+
+    @Name("src.DrawToPlane")
+    @Label("Draw To Plane")
+    @Category(CATEGORY)
+    public static class DrawToPlane extends Event {
+        @Label("Tiles Drawn")
+        public int tilesDrawn;
+        @Label("Pixels Written")
+        public long pixelsWritten;
+    }
+}
@@ -0,0 +1,113 @@
+package src.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+//process wide counters and latency histograms for named stages
+//a stage counts how often it ran, how many items it got through (rules, nodes, pixels...) and how long it took,
+//latencies go in power of two nanosecond buckets so recording is a couple of LongAdder increments
+public class Metrics {
+    private static final Map<String, Stage> stages = new ConcurrentSkipListMap<>();
+
+    public static final Stage SETUP = stage("setup");
+    public static final Stage REMOVE_INCORRECT_RULES = stage("removeIncorrectRules");
+    public static final Stage COLLAPSE_POSSIBILITIES = stage("collapsePossibilities");
+    public static final Stage TESSELLATION = stage("tessellation");
+    public static final Stage DRAW = stage("drawToPlane");
+
+    public static Stage stage(String name) {
+        return stages.computeIfAbsent(name, Stage::new);
+    }
+
+    public static Map<String, Stage> stages() {
+        return stages;
+    }
+
+    public static void reset() {
+        stages.values().forEach(Stage::reset);
+    }
+
+    //one line per stage that has run
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+        for (Stage stage : stages.values()) {
+            if(stage.count() == 0) continue;
+            report.append(stage).append('\n');
+        }
+        return report.toString();
+    }
+
+    public static class Stage {
+        private static final int BUCKETS = 64;
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder items = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+        private Stage(String name) {
+            this.name = name;
+            for (int i = 0; i < BUCKETS; i++) histogram[i] = new LongAdder();
+        }
+
+        //bucket b holds latencies in [2^b, 2^(b+1)) nanoseconds, 0 and 1 go in bucket 0
+        public void record(long nanos, long itemCount) {
+            count.increment();
+            items.add(itemCount);
+            totalNanos.add(nanos);
+            histogram[63 - Long.numberOfLeadingZeros(Math.max(1, nanos))].increment();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public long items() {
+            return items.sum();
+        }
+
+        public long totalNanos() {
+            return totalNanos.sum();
+        }
+
+        //items per second of time spent in the stage
+        public double throughput() {
+            long nanos = totalNanos();
+            return nanos == 0 ? 0 : items() * 1e9 / nanos;
+        }
+
+        //an upper bound on the latency below which the fraction p of runs finished, in nanoseconds
+        public long percentile(double p) {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) total += counts[i] = histogram[i].sum();
+            if(total == 0) return 0;
+            long rank = (long)Math.ceil(p * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if(seen >= rank) return i == BUCKETS - 1 ? Long.MAX_VALUE : 1L << (i + 1);
+            }
+            return Long.MAX_VALUE;
+        }
+
+        public void reset() {
+            count.reset();
+            items.reset();
+            totalNanos.reset();
+            for (LongAdder bucket : histogram) bucket.reset();
+        }
+
+        @Override
+        public String toString() {
+            long runs = count();
+            return String.format("%s: %d runs, %d items, %.0f items/s, mean %.3fms, p50 <%.3fms, p99 <%.3fms",
+                name, runs, items(), throughput(), runs == 0 ? 0 : totalNanos() / 1e6 / runs, percentile(0.5) / 1e6, percentile(0.99) / 1e6);
+        }
+    }
+}
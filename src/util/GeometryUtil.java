@@ -75,23 +75,13 @@ public class GeometryUtil {
             return new Point(x * mult / divide, y * mult / divide);
         }
 
-        public Pair<Float, Float> floatMultiply(float f) {
-            return new Pair<>(x * f, y * f);
-        }
-
         public Point matrixMultiply(Vector a, Vector b) {
             return new Point(x * a.vx + y * b.vx, x * a.vy + y * b.vy);
         }
 
-        public static Point fromFloatPair(Pair<Float, Float> p) {
-            return new Point((int)Math.floor(p.a) , (int)Math.floor(p.b));
-        }
-
-        public Point matrixMultiplyInverse(Vector a, Vector b) {
-            int denomDet = a.vx*b.vy - a.vy*b.vx;
-            Vector a2 = new Vector(b.vy, -a.vy);
-            Vector b2 = new Vector(-b.vx, a.vx);
-            return fromFloatPair(matrixMultiply(a2, b2).floatMultiply(1f / denomDet));
+        //z component of the cross product, 0 when both points are on the same line through the origin
+        public long cross(Point p) {
+            return (long)x * p.y - (long)y * p.x;
         }
 
         public Line lineBetween(Point q) {
@@ -186,6 +176,94 @@ public class GeometryUtil {
         }
     }
 
+    //the lattice spanned by two integer basis vectors
+    //converting to lattice coordinates floors exactly using the adjugate and determinant in long
+    public static class LatticeBasis {
+        private final Vector a, b;
+        private final long det;
+
+        public LatticeBasis(Vector a, Vector b) {
+            this.a = a;
+            this.b = b;
+            this.det = (long)a.vx * b.vy - (long)a.vy * b.vx;
+            if(det == 0) throw new IllegalArgumentException("Basis vectors " + a + " and " + b + " are parallel");
+        }
+
+        public Vector getA() { return a; }
+        public Vector getB() { return b; }
+
+        public long determinant() {
+            return det;
+        }
+        //the number of cells in one period of the lattice
+        public int area() {
+            return (int)Math.abs(det);
+        }
+        //floor of the first lattice coordinate of (x,y)
+        public long latticeX(long x, long y) {
+            return Math.floorDiv(b.vy * x - b.vx * y, det);
+        }
+        //floor of the second lattice coordinate of (x,y)
+        public long latticeY(long x, long y) {
+            return Math.floorDiv(a.vx * y - a.vy * x, det);
+        }
+        //ceiling of the first lattice coordinate of (x,y)
+        public long latticeXCeil(long x, long y) {
+            return -Math.floorDiv(b.vx * y - b.vy * x, det);
+        }
+        //ceiling of the second lattice coordinate of (x,y)
+        public long latticeYCeil(long x, long y) {
+            return -Math.floorDiv(a.vy * x - a.vx * y, det);
+        }
+
+        public long realX(long u, long v) {
+            return u * a.vx + v * b.vx;
+        }
+
+        public long realY(long u, long v) {
+            return u * a.vy + v * b.vy;
+        }
+
+        public Point toLattice(Point p) {
+            return new Point((int)latticeX(p.x, p.y), (int)latticeY(p.x, p.y));
+        }
+
+        public Point toReal(Point p) {
+            return new Point((int)realX(p.x, p.y), (int)realY(p.x, p.y));
+        }
+
+        //whether v is an integer combination of the basis vectors
+        public boolean contains(Vector v) {
+            long u = latticeX(v.vx, v.vy), w = latticeY(v.vx, v.vy);
+            return realX(u, w) == v.vx && realY(u, w) == v.vy;
+        }
+
+        //the same lattice as {<period,0>,<shift,height>} with period, height > 0 and 0 <= shift < period
+        //so the lattice repeats every period cells along a row, and row y + height is row y moved right by shift
+        public LatticeBasis hermiteNormalForm() {
+            //x * a.vy + y * b.vy = gcd(a.vy, b.vy)
+            long r0 = a.vy, r1 = b.vy, x0 = 1, x1 = 0, y0 = 0, y1 = 1;
+            while(r1 != 0) {
+                long q = Math.floorDiv(r0, r1), t;
+                t = r0 - q * r1; r0 = r1; r1 = t;
+                t = x0 - q * x1; x0 = x1; x1 = t;
+                t = y0 - q * y1; y0 = y1; y1 = t;
+            }
+            if(r0 < 0) {
+                r0 = -r0; x0 = -x0; y0 = -y0;
+            }
+            long height = r0;
+            long period = Math.abs(det) / height;
+            long shift = Math.floorMod(x0 * a.vx + y0 * b.vx, period);
+            return new LatticeBasis(new Vector((int)period, 0), new Vector((int)shift, (int)height));
+        }
+
+        @Override
+        public String toString() {
+            return "{" + a + "," + b + "}";
+        }
+    }
+
     public static class Parallelogram {
         public Point[] points = new Point[4];
         public Line[] lines = new Line[4];
@@ -36,6 +36,15 @@ public class Grouping {
             return elements;
         }
 
+        //the position of a permutation in the group, stable for the lifetime of the program
+        public int indexOf(Permutation p) {
+            return elements.indexOf(p);
+        }
+
+        public Permutation get(int index) {
+            return elements.get(index);
+        }
+
         public Permutation get(String label) {
            return labelMap.entrySet().stream()
            .filter(e -> e.getValue().equals(label))